@@ -3,8 +3,10 @@ package com.apigateway;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableEurekaClient
+@EnableScheduling // JWT keystore reloads
 @SpringBootApplication
 public class ApiGatewayApplication {
     public static void main(String[] args) {
@@ -0,0 +1,116 @@
+package com.apigateway.security;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Verifies tasktracker JWTs with one shared parser. Recently verified tokens are cached by their
+ * signature, so repeat requests with the same token skip the signature check entirely. Lookups take no
+ * lock; once the cache grows past its size one thread sweeps it, see {@link #remember}.
+ */
+@Component
+public class GatewayJwtVerifier {
+
+    private final GatewayKeyRing keyRing;
+    private final JwtParser parser;
+    private final int cacheSize;
+    private final Map<String, Cached> verified = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public GatewayJwtVerifier(GatewayKeyRing keyRing,
+            @Value("${gateway.jwt.verified-cache-size:4096}") int cacheSize) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * The identity in an access token, or null if the token is malformed, forged, expired, signed with an
+     * unknown key or a refresh token
+     */
+    public VerifiedIdentity verify(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        Cached cached = verified.get(signature);
+        if (cached != null && cached.token.equals(token) && keyRing.verificationKey(cached.keyId) != null) {
+            return cached.identity.isExpired() ? null : cached.identity;
+        }
+
+        Jws<Claims> jws;
+        try {
+            jws = parser.parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Claims claims = jws.getBody();
+        Long userId = claims.get("uid", Long.class);
+        // refresh tokens are only good for tasktracker's /auth/refresh
+        if (userId == null || "refresh".equals(claims.get("typ", String.class))) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        VerifiedIdentity identity = new VerifiedIdentity(claims.getId(), userId, claims.getSubject(),
+                roles != null ? Collections.unmodifiableList(roles) : Collections.<String>emptyList(),
+                claims.getExpiration());
+        remember(signature, new Cached(token, jws.getHeader().getKeyId(), identity));
+        return identity;
+    }
+
+    // Past the size, expired tokens go first, then arbitrary ones down to three quarters of it, so a cache
+    // full of live tokens isn't swept again on every put; threads that find a sweep running just carry on
+    private void remember(String signature, Cached entry) {
+        verified.put(signature, entry);
+        if (verified.size() > cacheSize && sweeping.compareAndSet(false, true)) {
+            try {
+                verified.values().removeIf(cached -> cached.identity.isExpired());
+                Iterator<String> signatures = verified.keySet().iterator();
+                while (verified.size() > cacheSize * 3 / 4 && signatures.hasNext()) {
+                    signatures.next();
+                    signatures.remove();
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private static class Cached {
+        final String token;
+        final String keyId;
+        final VerifiedIdentity identity;
+
+        Cached(String token, String keyId, VerifiedIdentity identity) {
+            this.token = token;
+            this.keyId = keyId;
+            this.identity = identity;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.apigateway.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verification keys for tasktracker JWTs, read from the same PKCS12 keystore the tasktracker nodes
+ * sign with. Aliases are key ids. The gateway never signs, so a store holding only certificates
+ * (public keys) is enough. Keys are kept in memory and reloaded when the file changes.
+ */
+@Component
+public class GatewayKeyRing {
+
+    private final Path path;
+    private final char[] password;
+
+    private volatile Map<String, Key> keys = Collections.emptyMap();
+    private volatile long loadedModified;
+
+    // defaults point at tasktracker's local stand-in key, for running every module from one checkout
+    public GatewayKeyRing(@Value("${gateway.jwt.keystore.path:../tasktracker/.jwt-keys.p12}") String path,
+            @Value("${gateway.jwt.keystore.password:tasktracker-local}") String password) {
+        this.path = Path.of(path);
+        this.password = password.toCharArray();
+        reloadIfChanged();
+    }
+
+    public Key verificationKey(String keyId) {
+        return keyId == null ? null : keys.get(keyId);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.jwt.keystore.reload-ms:60000}")
+    public void reloadIfChanged() {
+        try {
+            if (!Files.exists(path)) {
+                System.out.println("[GATEWAY] JWT keystore " + path.toAbsolutePath() + " not found, tokens cannot be verified yet");
+                return;
+            }
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == loadedModified) {
+                return;
+            }
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(path)) {
+                store.load(in, password);
+            }
+            Map<String, Key> loaded = new HashMap<>();
+            for (String alias : Collections.list(store.aliases())) {
+                Key key = store.isKeyEntry(alias) ? store.getKey(alias, password) : null;
+                if (key instanceof SecretKey) {
+                    loaded.put(alias, key);
+                } else {
+                    Certificate certificate = store.getCertificate(alias);
+                    if (certificate != null) {
+                        loaded.put(alias, certificate.getPublicKey());
+                    }
+                }
+            }
+            keys = Collections.unmodifiableMap(loaded);
+            loadedModified = modified;
+        } catch (IOException | GeneralSecurityException e) {
+            // keep verifying with the keys already loaded
+            System.out.println("[GATEWAY] Could not load JWT keystore " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.apigateway.security;
+
+import java.util.Date;
+import java.util.List;
+
+// who a verified token belongs to
+public class VerifiedIdentity {
+
+    private final String tokenId;
+    private final Long userId;
+    private final String username;
+    private final List<String> roles;
+    private final Date expiresAt;
+
+    public VerifiedIdentity(String tokenId, Long userId, String username, List<String> roles, Date expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.username = username;
+        this.roles = roles;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() { return tokenId; }
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public List<String> getRoles() { return roles; }
+    public Date getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired() {
+        return expiresAt.before(new Date());
+    }
+}
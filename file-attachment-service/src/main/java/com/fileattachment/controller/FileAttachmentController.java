@@ -26,7 +26,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @RestController
 @RequestMapping("/file")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "${cors.allowed-origin}")
 public class FileAttachmentController {
     
     // In-memory storage for demo purposes
@@ -0,0 +1,70 @@
+package com.gatewayidentity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Trusts the caller identity the API gateway forwards after verifying the JWT, so a service never
+ * parses tokens itself. The X-Auth-* headers are checked against their HMAC signature (shared gateway
+ * secret) and exposed as request attributes. Forged or stale headers get a 401, and so does any
+ * request without them unless its path is open or the service opted out of requiring them (local
+ * development, where nothing signs the headers).
+ * <p>
+ * There is no revocation check here: the revoked token ids live in tasktracker, and the gateway does
+ * not consult them. A service using this filter keeps accepting a logged-out or revoked access token
+ * until it expires (tasktracker.security.jwt.access-ttl-ms, 15 minutes by default).
+ */
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_ATTRIBUTE = "authUserId";
+    public static final String USERNAME_ATTRIBUTE = "authUsername";
+    public static final String ROLES_ATTRIBUTE = "authRoles";
+
+    private final byte[] secret;
+    private final long maxAgeSeconds;
+    private final boolean required;
+    private final List<String> openPaths;
+
+    public GatewayIdentityFilter(String secret, long maxAgeSeconds, boolean required, List<String> openPaths) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.required = required;
+        this.openPaths = openPaths;
+        if (required && secret.isBlank()) {
+            System.out.println("[GATEWAY] gateway.identity.secret not set, every request except " + openPaths
+                    + " is refused; set GATEWAY_IDENTITY_SECRET, or gateway.identity.required=false for local development");
+        } else if (!required) {
+            System.out.println("[GATEWAY] gateway.identity.required=false, requests without gateway identity are accepted");
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(IdentityHeaders.SIGNATURE) != null && secret.length > 0) {
+            if (!IdentityHeaders.isValid(secret, maxAgeSeconds, request::getHeader)) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            String roles = request.getHeader(IdentityHeaders.ROLES);
+            request.setAttribute(USER_ID_ATTRIBUTE, Long.valueOf(request.getHeader(IdentityHeaders.USER_ID)));
+            request.setAttribute(USERNAME_ATTRIBUTE, request.getHeader(IdentityHeaders.USERNAME));
+            request.setAttribute(ROLES_ATTRIBUTE, roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")));
+        } else if (required && !openPaths.contains(request.getRequestURI())
+                && !"OPTIONS".equals(request.getMethod())) {
+            // only requests routed through the gateway are accepted
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+# Startup benchmark: the plain jar against the fast-startup build (Spring AOT + AppCDS).
+#
+#   mvn -Pfast-startup -DskipTests package
+#   scripts/startup-benchmark.sh [runs]
+#
+# For every mode it starts the app, reads the "process running for" time Spring Boot logs once
+# the context is ready, then times the first HTTP request (GET /login) and stops the app.
+#
+# Environment:
+#   MODES            launch modes to compare (default "jar aot-cds")
+#                      jar       java -jar, the artifact we ship today
+#                      classpath plain classpath, no AOT or CDS
+#                      aot       plain classpath with -Dspring.aot.enabled=true
+#                      aot-cds   AOT plus the class-data sharing archive trained below
+#   PORT             HTTP port for the runs (default 18080)
+#   JAVA_OPTS        extra JVM options for every run, e.g. datasource overrides; without a
+#                    JWT keystore add -Dspring.profiles.active=dev for the local stand-in key
+#   EXTRA_CLASSPATH  extra classpath entries, e.g. a local JDBC driver; the jar mode puts them
+#                    next to the jar and starts it through the Boot launcher
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+MODES=${MODES:-"jar aot-cds"}
+JAR=target/tasktracker-0.0.1-SNAPSHOT.jar
+APP_JAR=target/tasktracker-app.jar
+CP="$APP_JAR:target/lib/*${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}"
+ARCHIVE=target/tasktracker.jsa
+MAIN=com.tasktracker.TasktrackerApplication
+COMMON="-Dserver.port=$PORT ${JAVA_OPTS:-}"
+
+if [[ ! -d target/lib || ! -d target/spring-aot ]]; then
+    echo "Build the fast-startup profile first: mvn -Pfast-startup -DskipTests package" >&2
+    exit 1
+fi
+# CDS only accepts jars on the classpath, so use the thin jar (classes + AOT output) that
+# spring-boot:repackage keeps as *.jar.original
+cp -p "$JAR.original" "$APP_JAR"
+
+launch() {
+    case $1 in
+        jar)       if [[ -n ${EXTRA_CLASSPATH:-} ]]; then
+                       # what java -jar runs, with the extra entries visible to the jar's class loader
+                       exec java $COMMON -cp "$JAR:$EXTRA_CLASSPATH" org.springframework.boot.loader.JarLauncher
+                   fi
+                   exec java $COMMON -jar "$JAR" ;;
+        classpath) exec java $COMMON -cp "$CP" $MAIN ;;
+        aot)       exec java -Dspring.aot.enabled=true $COMMON -cp "$CP" $MAIN ;;
+        aot-cds)   exec java -XX:SharedArchiveFile=$ARCHIVE -Dspring.aot.enabled=true $COMMON -cp "$CP" $MAIN ;;
+        *)         echo "unknown mode $1" >&2; exit 1 ;;
+    esac
+}
+
+# Starts the app once and exits after the context is ready; the JVM writes the loaded classes
+# to the archive on exit. The classpath must match the one used by the aot-cds runs.
+train_cds() {
+    echo "Training class-data sharing archive -> $ARCHIVE"
+    java -XX:ArchiveClassesAtExit=$ARCHIVE -Dspring.aot.enabled=true -Dtasktracker.cds.training=true \
+        $COMMON -cp "$CP" $MAIN > target/cds-training.log 2>&1
+}
+
+# Prints "<startup seconds> <first request seconds>"
+measure() {
+    local mode=$1 log=target/startup-$1.log
+    (launch "$mode") > "$log" 2>&1 &
+    local pid=$!
+    until grep -q "Started TasktrackerApplication" "$log"; do
+        if ! kill -0 $pid 2>/dev/null; then
+            echo "$mode did not start, see $log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    local started first
+    started=$(sed -n 's/.*Started TasktrackerApplication in .*process running for \([0-9.]*\)).*/\1/p' "$log")
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/login")
+    kill $pid
+    wait $pid 2>/dev/null || true
+    echo "$started $first"
+}
+
+[[ " $MODES " == *" aot-cds "* ]] && train_cds
+
+printf '%-10s %6s %14s %18s\n' mode runs "startup (s)" "first request (ms)"
+for mode in $MODES; do
+    results=()
+    for ((i = 0; i < RUNS; i++)); do
+        results+=("$(measure "$mode")")
+    done
+    printf '%s\n' "${results[@]}" | awk -v mode="$mode" -v runs="$RUNS" \
+        '{ s += $1; r += $2 } END { printf "%-10s %6d %14.2f %18.1f\n", mode, runs, s / NR, r * 1000 / NR }'
+done
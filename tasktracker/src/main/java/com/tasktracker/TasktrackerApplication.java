@@ -2,6 +2,7 @@ package com.tasktracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -11,7 +12,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class TasktrackerApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(TasktrackerApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(TasktrackerApplication.class, args);
+		// Class-data sharing training run (scripts/startup-benchmark.sh): start fully, then exit so
+		// the JVM can dump the loaded classes to the archive
+		if (Boolean.getBoolean("tasktracker.cds.training")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
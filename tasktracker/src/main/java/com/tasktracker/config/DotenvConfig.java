@@ -19,6 +19,11 @@ public class DotenvConfig implements ApplicationContextInitializer<ConfigurableA
     public void initialize(ConfigurableApplicationContext applicationContext) {
         ConfigurableEnvironment environment = applicationContext.getEnvironment();
 
+        // Deployments that pass real environment variables can skip the .env lookup entirely
+        if (!environment.getProperty("tasktracker.dotenv.enabled", Boolean.class, true)) {
+            return;
+        }
+
         try {
             // Check if .env file exists in the current directory
             File envFile = new File(".env");
@@ -1,45 +1,78 @@
 package com.tasktracker.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.tasktracker.repo.AppUserRepository;
 
+import com.tasktracker.security.AuthCookies;
+import com.tasktracker.security.AuthenticatedUser;
+import com.tasktracker.security.BoundedPasswordEncoder;
 import com.tasktracker.security.JwtAuthenticationFilter;
+import com.tasktracker.security.LoginThrottleFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 public class SecurityConfig {
 
+    // BCrypt runs on its own bounded pool, see BoundedPasswordEncoder; raising the cost rehashes users as they log in
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meters,
+            @Value("${tasktracker.security.password-hashing.bcrypt-cost:10}") int bcryptCost,
+            @Value("${tasktracker.security.password-hashing.threads:0}") int threads,
+            @Value("${tasktracker.security.password-hashing.queue-capacity:32}") int queueCapacity,
+            @Value("${tasktracker.security.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        // default: half the cores, so hashing can never take all of them
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptCost), poolSize, queueCapacity, timeoutMs,
+                meters);
     }
 
     @Bean
     public UserDetailsService userDetailsService(AppUserRepository users) {
         return username -> users.findByUsername(username)
-                .map(user -> org.springframework.security.core.userdetails.User.builder()
-                        .username(user.getUsername())
-                        .password(user.getPassword())
-                        .roles(user.getRole().name())
-                        .build())
+                .map(user -> new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    // stores the new hash when a login upgrades an old one
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService(AppUserRepository users) {
+        return (user, newPassword) -> {
+            users.findByUsername(user.getUsername()).ifPresent(appUser -> {
+                appUser.setPassword(newPassword);
+                users.save(appUser);
+            });
+            AuthenticatedUser current = (AuthenticatedUser) user;
+            return new AuthenticatedUser(current.getId(), current.getUsername(), newPassword, current.getAuthorities());
+        };
+    }
+
     @Bean
     public DaoAuthenticationProvider authProvider(UserDetailsService userDetailsService,
-            BCryptPasswordEncoder encoder) {
+            UserDetailsPasswordService userDetailsPasswordService, PasswordEncoder encoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         provider.setPasswordEncoder(encoder);
         return provider;
     }
@@ -51,19 +84,32 @@ public class SecurityConfig {
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authProvider,
-            JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
+            JwtAuthenticationFilter jwtAuthenticationFilter, LoginThrottleFilter loginThrottleFilter,
+            AuthCookies authCookies) throws Exception {
+        // no sessions at all: pages authenticate with the JWT cookies set at login (see AuthCookies),
+        // API clients with a bearer token, so any instance can serve any request
+        SimpleUrlAuthenticationFailureHandler loginFailure = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        loginFailure.setAllowSessionCreation(false);
+
         http.authenticationProvider(authProvider)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**", "/login", "/css/**", "/js/**", "/images/**").permitAll()
                         .anyRequest().authenticated())
                 .formLogin(form -> form
                         .loginPage("/login")
-                        .defaultSuccessUrl("/", true)
+                        .successHandler((request, response, authentication) -> {
+                            authCookies.issue(response, (AuthenticatedUser) authentication.getPrincipal());
+                            response.sendRedirect("/");
+                        })
+                        .failureHandler(loginFailure)
                         .permitAll())
                 .logout(logout -> logout
+                        .addLogoutHandler((request, response, authentication) -> authCookies.clear(request, response))
                         .logoutSuccessUrl("/login?logout")
                         .permitAll())
+                .addFilterBefore(loginThrottleFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,22 @@
+package com.tasktracker.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+//beans that are not needed to serve requests are created on first use instead of at startup
+@Configuration
+public class StartupConfig {
+
+    // The mail sender is only needed when a notification goes out; MailDispatcher
+    // looks it up through an ObjectProvider so nothing forces it during startup
+    @Bean
+    public static BeanFactoryPostProcessor lazyMailSender() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(JavaMailSender.class, true, false)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.tasktracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.util.List;
@@ -16,6 +17,8 @@ public class Category {
     @Column(length = 500)
     private String description;
     
+    // Never serialized: task counts come from TaskRepository.countByCategory in one query
+    @JsonIgnore
     @OneToMany(mappedBy = "category", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<Task> tasks = new ArrayList<>();
 
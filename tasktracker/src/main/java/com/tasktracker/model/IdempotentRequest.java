@@ -0,0 +1,45 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+
+// a request made with an Idempotency-Key, and its response once there is one; see IdempotentRequests
+@Entity @Table(name = "idempotent_request")
+public class IdempotentRequest {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 191)
+    private String idempotencyKey;
+
+    // SHA-256 of the request, so a key reused for a different request is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // epoch millis; the lease of the node running the request
+    @Column(name = "locked_until", nullable = false)
+    private long lockedUntil;
+
+    // null while the request runs
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Lob @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    public IdempotentRequest() {}
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public String getRequestHash() { return requestHash; }
+    public long getLockedUntil() { return lockedUntil; }
+    public Integer getResponseStatus() { return responseStatus; }
+    public String getResponseBody() { return responseBody; }
+    public long getExpiresAt() { return expiresAt; }
+}
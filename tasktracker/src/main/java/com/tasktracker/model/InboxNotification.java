@@ -0,0 +1,52 @@
+package com.tasktracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// an in-app notification, filed by the notification jobs next to the mail; see InboxService
+@Entity @Table(name = "inbox_notification")
+public class InboxNotification {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // the id only: a page of entries never needs the user loaded
+    @JsonIgnore
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // due-soon, overdue, weekly-summary, reminder
+    @Column(nullable = false, length = 32)
+    private String kind;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Lob @Column(columnDefinition = "text", nullable = false)
+    private String body;
+
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @JsonIgnore
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 191)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    public InboxNotification() {}
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public String getKind() { return kind; }
+    public String getTitle() { return title; }
+    public String getBody() { return body; }
+    public Long getTaskId() { return taskId; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getReadAt() { return readAt; }
+}
@@ -0,0 +1,89 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+
+// one owner id range (afterOwner, lastOwner] of a partitioned job run, see PartitionedJobs
+@Entity @Table(name = "job_partition")
+public class JobPartition {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String job;
+
+    // which run: the hour or week the job was scheduled for
+    @Column(nullable = false, length = 64)
+    private String period;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "after_owner", nullable = false)
+    private long afterOwner;
+
+    @Column(name = "last_owner", nullable = false)
+    private long lastOwner;
+
+    // owners up to here are done
+    @Column(nullable = false)
+    private long checkpoint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PartitionStatus status = PartitionStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    // epoch millis, like the other timestamps here
+    @Column(name = "claimed_until", nullable = false)
+    private long claimedUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "finished_at")
+    private Long finishedAt;
+
+    // running totals over the chunks done so far; a chunk redone after a lost lease counts its users twice
+    @Column(name = "users_processed", nullable = false)
+    private int usersProcessed;
+
+    @Column(name = "mails_queued", nullable = false)
+    private int mailsQueued;
+
+    // attempts that ended in an error
+    @Column(nullable = false)
+    private int failures;
+
+    public JobPartition() {}
+    public JobPartition(String job, String period, int partitionNo, long afterOwner, long lastOwner) {
+        this.job = job;
+        this.period = period;
+        this.partitionNo = partitionNo;
+        this.afterOwner = afterOwner;
+        this.lastOwner = lastOwner;
+        this.checkpoint = afterOwner;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public Long getId() { return id; }
+    public String getJob() { return job; }
+    public String getPeriod() { return period; }
+    public int getPartitionNo() { return partitionNo; }
+    public long getAfterOwner() { return afterOwner; }
+    public long getLastOwner() { return lastOwner; }
+    public long getCheckpoint() { return checkpoint; }
+    public PartitionStatus getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public String getClaimedBy() { return claimedBy; }
+    public long getClaimedUntil() { return claimedUntil; }
+    public long getCreatedAt() { return createdAt; }
+    public Long getFinishedAt() { return finishedAt; }
+    public int getUsersProcessed() { return usersProcessed; }
+    public int getMailsQueued() { return mailsQueued; }
+    public int getFailures() { return failures; }
+}
@@ -0,0 +1,46 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// a mail MailDispatcher gave up on after its last retry
+@Entity @Table(name = "mail_dead_letter")
+public class MailDeadLetter {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Lob @Column(columnDefinition = "text")
+    private String body;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    public MailDeadLetter() {}
+    public MailDeadLetter(String recipient, String subject, String body, int attempts, String lastError) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.attempts = attempts;
+        this.lastError = lastError != null && lastError.length() > 1000 ? lastError.substring(0, 1000) : lastError;
+        this.failedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getBody() { return body; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getFailedAt() { return failedAt; }
+}
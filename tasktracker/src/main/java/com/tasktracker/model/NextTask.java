@@ -0,0 +1,7 @@
+package com.tasktracker.model;
+
+import java.time.LocalDate;
+
+// the columns of a task the "what's next" list shows
+public record NextTask(Long id, String title, Priority priority, Status status, LocalDate dueDate) {
+}
@@ -0,0 +1,56 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// a notification mail written in the transaction that triggered it, delivered later by OutboxRelay
+@Entity @Table(name = "notification_outbox")
+public class OutboxMessage {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 191)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Lob @Column(columnDefinition = "text")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // claimed by a relay until then; an instance that dies mid-delivery simply lets it lapse
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public OutboxMessage() {}
+
+    public Long getId() { return id; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getBody() { return body; }
+    public OutboxStatus getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+    public LocalDateTime getSentAt() { return sentAt; }
+}
@@ -0,0 +1,2 @@
+package com.tasktracker.model;
+public enum OutboxStatus { PENDING, SENT, FAILED }
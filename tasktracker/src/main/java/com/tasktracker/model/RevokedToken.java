@@ -0,0 +1,28 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+
+// a revoked JWT, kept until the token would have expired anyway
+@Entity @Table(name = "revoked_token")
+public class RevokedToken {
+    @Id @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    // epoch millis
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt;
+
+    public RevokedToken() {}
+    public RevokedToken(String tokenId, long expiresAt, long revokedAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    public String getTokenId() { return tokenId; }
+    public long getExpiresAt() { return expiresAt; }
+    public long getRevokedAt() { return revokedAt; }
+}
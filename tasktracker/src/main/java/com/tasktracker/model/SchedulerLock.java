@@ -0,0 +1,27 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+
+// lease on a scheduled job, see DatabaseJobLock
+@Entity @Table(name = "scheduler_lock")
+public class SchedulerLock {
+    @Id @Column(length = 64)
+    private String name;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    // epoch millis
+    @Column(name = "locked_at", nullable = false)
+    private long lockedAt;
+
+    @Column(name = "locked_until", nullable = false)
+    private long lockedUntil;
+
+    public SchedulerLock() {}
+
+    public String getName() { return name; }
+    public String getLockedBy() { return lockedBy; }
+    public long getLockedAt() { return lockedAt; }
+    public long getLockedUntil() { return lockedUntil; }
+}
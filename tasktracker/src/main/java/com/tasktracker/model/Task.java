@@ -1,5 +1,6 @@
 package com.tasktracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDate;
@@ -24,6 +25,20 @@ public class Task {
     private LocalDate dueDate;
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // set when the task becomes DONE, cleared when it leaves DONE again
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Due date the last due-soon reminder was for; written only by the notification scan's bulk update
+    // (TaskRepository.markReminded), so flushing an edit that loaded the task before a scan can't reset it
+    @JsonIgnore
+    @Column(name = "reminded_due_date", insertable = false, updatable = false)
+    private LocalDate remindedDueDate;
+
+    @JsonIgnore
+    @Column(name = "reminded_at", insertable = false, updatable = false)
+    private LocalDateTime remindedAt;
+
     // Owner of the task
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private AppUser owner;
@@ -40,13 +55,23 @@ public class Task {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
     public Status getStatus() { return status; }
-    public void setStatus(Status status) { this.status = status; }
+    public void setStatus(Status status) {
+        if (status == Status.DONE && this.status != Status.DONE) {
+            completedAt = LocalDateTime.now();
+        } else if (status != Status.DONE) {
+            completedAt = null;
+        }
+        this.status = status;
+    }
+    public LocalDateTime getCompletedAt() { return completedAt; }
     public Priority getPriority() { return priority; }
     public void setPriority(Priority priority) { this.priority = priority; }
     public LocalDate getDueDate() { return dueDate; }
     public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDate getRemindedDueDate() { return remindedDueDate; }
+    public LocalDateTime getRemindedAt() { return remindedAt; }
     public AppUser getOwner() { return owner; }
     public void setOwner(AppUser owner) { this.owner = owner; }
     public Category getCategory() { return category; }
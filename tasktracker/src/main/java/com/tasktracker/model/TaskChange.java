@@ -0,0 +1,13 @@
+package com.tasktracker.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// one entry of a delta sync: the task as it is now, or just its id when deleted is set
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskChange(Long id, @JsonIgnore long seq, boolean deleted, String title, String description,
+        Priority priority, Status status, LocalDate dueDate, Long categoryId, LocalDateTime completedAt) {
+}
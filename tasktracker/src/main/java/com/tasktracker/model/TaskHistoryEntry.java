@@ -0,0 +1,51 @@
+package com.tasktracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// one change to a task in its history; written by TaskHistoryWriter, see TaskHistory
+@Entity @Table(name = "task_history")
+public class TaskHistoryEntry {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    // the task's owner, who alone may read the history
+    @JsonIgnore
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    // created, updated, deleted, status
+    @Column(nullable = false, length = 16)
+    private String action;
+
+    // {"field": {"from": ..., "to": ...}}, passed through to the JSON as is
+    @JsonRawValue
+    @Lob @Column(columnDefinition = "text", nullable = false)
+    private String changes;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @JsonIgnore
+    @Column(name = "entry_key", nullable = false, unique = true, length = 36)
+    private String entryKey;
+
+    public TaskHistoryEntry() {}
+
+    public Long getId() { return id; }
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public Long getActorId() { return actorId; }
+    public String getAction() { return action; }
+    public String getChanges() { return changes; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public String getEntryKey() { return entryKey; }
+}
@@ -0,0 +1,39 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// a reminder offsetMinutes before a task is due, see ReminderScheduler
+@Entity @Table(name = "task_reminder")
+public class TaskReminder {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id")
+    private Task task;
+
+    @Column(name = "offset_minutes", nullable = false)
+    private int offsetMinutes;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    // set by whichever instance sent it, or right away for a time already past when it was set
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+
+    public TaskReminder() {}
+    public TaskReminder(Task task, int offsetMinutes, LocalDateTime fireAt, LocalDateTime firedAt) {
+        this.task = task;
+        this.offsetMinutes = offsetMinutes;
+        this.fireAt = fireAt;
+        this.firedAt = firedAt;
+    }
+
+    public Long getId() { return id; }
+    public Task getTask() { return task; }
+    public int getOffsetMinutes() { return offsetMinutes; }
+    public LocalDateTime getFireAt() { return fireAt; }
+    public LocalDateTime getFiredAt() { return firedAt; }
+}
@@ -0,0 +1,7 @@
+package com.tasktracker.model;
+
+import java.time.LocalDateTime;
+
+// a task's status fields alone, as the status transition endpoints return them
+public record TaskState(Long id, Status status, LocalDateTime completedAt) {
+}
@@ -0,0 +1,28 @@
+package com.tasktracker.model;
+
+import jakarta.persistence.*;
+
+// where a task stands in its owner's change sequence; written by TaskSyncRepository, see TaskSyncService
+@Entity @Table(name = "task_sync")
+public class TaskSync {
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    // the task is gone and this row is its tombstone
+    @Column(nullable = false)
+    private boolean deleted;
+
+    public TaskSync() {}
+
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public long getSeq() { return seq; }
+    public boolean isDeleted() { return deleted; }
+}
@@ -1,10 +1,14 @@
 package com.tasktracker.repo;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Role;
 
 //in this there is no password checking just the username is provided from the db the find my username is used in userdetailservixce 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
@@ -16,6 +20,12 @@ public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     boolean existsByEmail(String email);// prevent duplicate email registrations
 
     Optional<AppUser> findByEmail(String email);
+
+    @Query("select u.role from AppUser u where u.id = :id")
+    Optional<Role> findRoleById(@Param("id") Long id);// only the role, used by the jwt filter's status cache
+
+    @Query("select min(u.id), max(u.id) from AppUser u")
+    List<Object[]> findIdBounds();// [min, max], both null without users; splits partitioned jobs into ranges
 }
 // 1. Extending JpaRepository<AppUser, Long>
 // AppUser → your Entity class (represents a table in the database).
@@ -0,0 +1,60 @@
+package com.tasktracker.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.IdempotentRequest;
+
+public interface IdempotentRequestRepository extends JpaRepository<IdempotentRequest, Long> {
+
+    Optional<IdempotentRequest> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // 1 if this node now runs the request, 0 if the key is already taken
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into idempotent_request"
+            + " (user_id, idempotency_key, request_hash, locked_until, expires_at)"
+            + " values (:userId, :key, :hash, :lockedUntil, :expiresAt)", nativeQuery = true)
+    int claim(@Param("userId") Long userId, @Param("key") String idempotencyKey, @Param("hash") String requestHash,
+            @Param("lockedUntil") long lockedUntil, @Param("expiresAt") long expiresAt);
+
+    // A key whose runner's lease ran out (the node died mid-request), or whose response expired, goes to
+    // the first node to ask for it again
+    @Transactional
+    @Modifying
+    @Query("update IdempotentRequest r set r.requestHash = :hash, r.lockedUntil = :lockedUntil,"
+            + " r.expiresAt = :expiresAt, r.responseStatus = null, r.responseBody = null"
+            + " where r.userId = :userId and r.idempotencyKey = :key"
+            + " and ((r.responseStatus is null and r.lockedUntil < :now) or r.expiresAt < :now)")
+    int takeOver(@Param("userId") Long userId, @Param("key") String idempotencyKey, @Param("hash") String requestHash,
+            @Param("lockedUntil") long lockedUntil, @Param("expiresAt") long expiresAt, @Param("now") long now);
+
+    // In the transaction of the change itself, so the change and its stored response commit together.
+    // The lease identifies the claim: 0 if another node has taken the key over since
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query("update IdempotentRequest r set r.responseStatus = :status, r.responseBody = :body"
+            + " where r.userId = :userId and r.idempotencyKey = :key and r.lockedUntil = :lockedUntil"
+            + " and r.responseStatus is null")
+    int complete(@Param("userId") Long userId, @Param("key") String idempotencyKey,
+            @Param("lockedUntil") long lockedUntil, @Param("status") int status, @Param("body") String body);
+
+    // the request failed: the key is free for a retry
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotentRequest r where r.userId = :userId and r.idempotencyKey = :key"
+            + " and r.lockedUntil = :lockedUntil and r.responseStatus is null")
+    int release(@Param("userId") Long userId, @Param("key") String idempotencyKey,
+            @Param("lockedUntil") long lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotentRequest r where r.expiresAt < :now and (r.responseStatus is not null or r.lockedUntil < :now)")
+    int deleteExpired(@Param("now") long now);
+}
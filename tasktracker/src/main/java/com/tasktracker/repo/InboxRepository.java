@@ -0,0 +1,58 @@
+package com.tasktracker.repo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.InboxNotification;
+
+public interface InboxRepository extends JpaRepository<InboxNotification, Long> {
+
+    // in the caller's transaction, like NotificationOutboxRepository.enqueue; 0 if the key is already filed
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert ignore into inbox_notification"
+            + " (user_id, kind, title, body, task_id, idempotency_key, created_at)"
+            + " values (:userId, :kind, :title, :body, :taskId, :key, :createdAt)", nativeQuery = true)
+    int file(@Param("userId") Long userId, @Param("kind") String kind, @Param("title") String title,
+            @Param("body") String body, @Param("taskId") Long taskId, @Param("key") String idempotencyKey,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    // newest first, from just below the given id (Long.MAX_VALUE for the first page)
+    List<InboxNotification> findByUserIdAndIdLessThanOrderByIdDesc(Long userId, Long beforeId, Pageable page);
+
+    @Modifying
+    @Query("update InboxNotification n set n.readAt = :now"
+            + " where n.userId = :userId and n.id in :ids and n.readAt is null")
+    int markRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update InboxNotification n set n.readAt = :now"
+            + " where n.userId = :userId and n.id <= :upTo and n.readAt is null")
+    int markReadUpTo(@Param("userId") Long userId, @Param("upTo") Long upTo, @Param("now") LocalDateTime now);
+
+    // the counter row appears with the user's first entry
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert into notification_counter (user_id, unread) values (:userId, :count)"
+            + " on duplicate key update unread = unread + :count", nativeQuery = true)
+    int addUnread(@Param("userId") Long userId, @Param("count") int count);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "update notification_counter set unread = greatest(unread - :count, 0) where user_id = :userId",
+            nativeQuery = true)
+    int removeUnread(@Param("userId") Long userId, @Param("count") int count);
+
+    @Query(value = "select unread from notification_counter where user_id = :userId", nativeQuery = true)
+    Optional<Integer> findUnread(@Param("userId") Long userId);
+}
@@ -0,0 +1,83 @@
+package com.tasktracker.repo;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.JobPartition;
+import com.tasktracker.model.PartitionStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface JobPartitionRepository extends JpaRepository<JobPartition, Long> {
+
+    boolean existsByJobAndPeriod(String job, String period);
+
+    long countByJobAndPeriod(String job, String period);
+
+    long countByJobAndPeriodAndStatus(String job, String period, PartitionStatus status);
+
+    // skip locked, as in NotificationOutboxRepository.findClaimable: workers on other instances get other ranges
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from JobPartition p where p.status = com.tasktracker.model.PartitionStatus.PENDING"
+            + " and p.claimedUntil < :now order by p.id")
+    List<JobPartition> findClaimable(@Param("now") long now, Pageable batch);
+
+    @Modifying
+    @Query("update JobPartition p set p.claimedBy = :owner, p.claimedUntil = :until, p.attempts = p.attempts + 1"
+            + " where p.id = :id")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("until") long until);
+
+    // moves the checkpoint, adds the chunk's counts and renews the claim; 0 when another worker has taken
+    // the range over
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.checkpoint = :checkpoint, p.claimedUntil = :until,"
+            + " p.usersProcessed = p.usersProcessed + :users, p.mailsQueued = p.mailsQueued + :mails"
+            + " where p.id = :id and p.claimedBy = :owner and p.status = com.tasktracker.model.PartitionStatus.PENDING")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("checkpoint") long checkpoint,
+            @Param("until") long until, @Param("users") int users, @Param("mails") int mails);
+
+    // with the last chunk's counts; 0, like checkpoint, when another worker has taken the range over
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.status = :status, p.finishedAt = :now, p.claimedUntil = 0,"
+            + " p.usersProcessed = p.usersProcessed + :users, p.mailsQueued = p.mailsQueued + :mails"
+            + " where p.id = :id and p.claimedBy = :owner and p.status = com.tasktracker.model.PartitionStatus.PENDING")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") PartitionStatus status,
+            @Param("now") long now, @Param("users") int users, @Param("mails") int mails);
+
+    // handed back after an error, for another attempt on the next poll
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.claimedUntil = 0, p.failures = p.failures + 1"
+            + " where p.id = :id and p.claimedBy = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    // one row for the run: partitions, done, failed, users, mails, failures, first created, last finished
+    @Query("select count(p),"
+            + " sum(case when p.status = com.tasktracker.model.PartitionStatus.DONE then 1 else 0 end),"
+            + " sum(case when p.status = com.tasktracker.model.PartitionStatus.FAILED then 1 else 0 end),"
+            + " sum(p.usersProcessed), sum(p.mailsQueued), sum(p.failures), min(p.createdAt), max(p.finishedAt)"
+            + " from JobPartition p where p.job = :job and p.period = :period")
+    List<Object[]> summarize(@Param("job") String job, @Param("period") String period);
+
+    @Modifying
+    @Query("update JobPartition p set p.status = com.tasktracker.model.PartitionStatus.FAILED, p.finishedAt = :now"
+            + " where p.id = :id")
+    int giveUp(@Param("id") Long id, @Param("now") long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from JobPartition p where p.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") long before);
+}
@@ -0,0 +1,6 @@
+package com.tasktracker.repo;
+
+import com.tasktracker.model.MailDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailDeadLetterRepository extends JpaRepository<MailDeadLetter, Long> {}
@@ -0,0 +1,69 @@
+package com.tasktracker.repo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.OutboxMessage;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface NotificationOutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // joins the caller's transaction, so the row commits or rolls back with the change that wrote it;
+    // a row with the same idempotency key already there makes this a no-op (returns 0)
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert ignore into notification_outbox"
+            + " (idempotency_key, recipient, subject, body, status, attempts, created_at)"
+            + " values (:key, :recipient, :subject, :body, 'PENDING', 0, :createdAt)", nativeQuery = true)
+    int enqueue(@Param("key") String idempotencyKey, @Param("recipient") String recipient,
+            @Param("subject") String subject, @Param("body") String body,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    // lock timeout -2 is skip locked: for update skip locked on MySQL, so relays on other instances
+    // each get different rows instead of queueing behind each other (H2 has no skip locked and just waits)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from OutboxMessage m where m.status = com.tasktracker.model.OutboxStatus.PENDING"
+            + " and (m.claimedUntil is null or m.claimedUntil < :now) order by m.id")
+    List<OutboxMessage> findClaimable(@Param("now") LocalDateTime now, Pageable batch);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.claimedUntil = :until where m.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.status = com.tasktracker.model.OutboxStatus.SENT, m.sentAt = :now,"
+            + " m.attempts = m.attempts + :attempts, m.claimedUntil = null where m.id = :id")
+    int markSent(@Param("id") Long id, @Param("attempts") int attempts, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.status = com.tasktracker.model.OutboxStatus.FAILED,"
+            + " m.attempts = m.attempts + :attempts, m.lastError = :error, m.claimedUntil = null where m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("attempts") int attempts, @Param("error") String error);
+
+    // handed back without an attempt (e.g. the mail queue was full); the next poll picks it up again
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.claimedUntil = null where m.id = :id")
+    int release(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage m where m.status = com.tasktracker.model.OutboxStatus.SENT and m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
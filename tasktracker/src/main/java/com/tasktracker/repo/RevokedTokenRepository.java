@@ -0,0 +1,23 @@
+package com.tasktracker.repo;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(long revokedAt);
+
+    List<RevokedToken> findByExpiresAtGreaterThan(long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
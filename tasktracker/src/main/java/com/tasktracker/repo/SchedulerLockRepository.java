@@ -0,0 +1,31 @@
+package com.tasktracker.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.SchedulerLock;
+
+// every statement is a single conditional update, so the database settles races between instances
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into scheduler_lock (name, locked_by, locked_at, locked_until)"
+            + " values (:name, '', 0, 0)", nativeQuery = true)
+    int createIfMissing(@Param("name") String name);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedBy = :owner, l.lockedAt = :now, l.lockedUntil = :until"
+            + " where l.name = :name and (l.lockedUntil <= :now or l.lockedBy = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") long now,
+            @Param("until") long until);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :until where l.name = :name and l.lockedBy = :owner")
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("until") long until);
+}
@@ -0,0 +1,31 @@
+package com.tasktracker.repo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.TaskHistoryEntry;
+
+public interface TaskHistoryRepository extends JpaRepository<TaskHistoryEntry, Long> {
+
+    // in the writer's batch transaction; 0 if the entry was already written (a journal replay)
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert ignore into task_history"
+            + " (task_id, user_id, actor_id, action, changes, changed_at, entry_key)"
+            + " values (:taskId, :userId, :actorId, :action, :changes, :changedAt, :key)", nativeQuery = true)
+    int append(@Param("taskId") Long taskId, @Param("userId") Long userId, @Param("actorId") Long actorId,
+            @Param("action") String action, @Param("changes") String changes,
+            @Param("changedAt") LocalDateTime changedAt, @Param("key") String entryKey);
+
+    // newest first, from just below the given id (Long.MAX_VALUE for the first page)
+    List<TaskHistoryEntry> findByTaskIdAndUserIdAndIdLessThanOrderByIdDesc(Long taskId, Long userId, Long beforeId,
+            Pageable page);
+}
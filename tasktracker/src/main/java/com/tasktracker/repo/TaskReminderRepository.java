@@ -0,0 +1,33 @@
+package com.tasktracker.repo;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.tasktracker.model.TaskReminder;
+
+public interface TaskReminderRepository extends JpaRepository<TaskReminder, Long> {
+
+    List<TaskReminder> findByTaskId(Long taskId);
+
+    // the wheel's next slice: a range on idx_task_reminder_fire_at, never a scan of the whole table
+    @Query("select r from TaskReminder r where r.fireAt >= :from and r.fireAt < :to and r.firedAt is null")
+    List<TaskReminder> findUnfiredBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select r from TaskReminder r join fetch r.task t join fetch t.owner where r.id = :id")
+    Optional<TaskReminder> findWithTaskById(@Param("id") Long id);
+
+    // every instance's wheel fires the same reminder; the one whose update matches sends it
+    @Modifying
+    @Query("update TaskReminder r set r.firedAt = :now where r.id = :id and r.firedAt is null")
+    int markFired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from TaskReminder r where r.task.id = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
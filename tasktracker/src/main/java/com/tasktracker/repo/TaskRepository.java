@@ -2,13 +2,116 @@ package com.tasktracker.repo;
 
 import com.tasktracker.model.Task;
 import com.tasktracker.model.AppUser;
+import com.tasktracker.model.NextTask;
+import com.tasktracker.model.Priority;
 import com.tasktracker.model.Status;
+import com.tasktracker.model.TaskState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
+    // category is fetched with the tasks so JSON and templates don't issue one select per row
+    @EntityGraph(attributePaths = "category")
     List<Task> findByOwner(AppUser owner);
+
+    @EntityGraph(attributePaths = "category")
     List<Task> findByOwnerAndStatus(AppUser owner, Status status);
+
+    @EntityGraph(attributePaths = "category")
     List<Task> findByOwnerAndDueDateBetween(AppUser owner, LocalDate start, LocalDate end);
+
+    // Notification scans: one query for all users with ids in (afterOwner, lastOwner], rows ordered by owner
+    // so callers can build each user's digest as the rows stream past. Must be consumed inside a
+    // transaction and closed.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Task t join fetch t.owner where t.status <> com.tasktracker.model.Status.DONE"
+            + " and t.dueDate between :from and :to and t.owner.id > :afterOwner and t.owner.id <= :lastOwner"
+            // tasks already in a reminder for this due date are left out, so only news makes a digest
+            + " and (t.remindedDueDate is null or t.remindedDueDate <> t.dueDate)"
+            + " order by t.owner.id, t.dueDate, t.id")
+    Stream<Task> streamUnremindedTasksDueBetween(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("afterOwner") long afterOwner, @Param("lastOwner") long lastOwner);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Task t join fetch t.owner where t.status <> com.tasktracker.model.Status.DONE"
+            + " and t.dueDate < :date and t.owner.id > :afterOwner and t.owner.id <= :lastOwner"
+            + " order by t.owner.id, t.dueDate, t.id")
+    Stream<Task> streamOpenTasksDueBefore(@Param("date") LocalDate date,
+            @Param("afterOwner") long afterOwner, @Param("lastOwner") long lastOwner);
+
+    // The owner's open tasks due on or before the day, latest due first (the day's own, then the most
+    // recently overdue): a range of idx_task_owner_due_date cut off at the page
+    @Query("select t from Task t where t.owner.id = :ownerId and t.dueDate <= :day"
+            + " and t.status <> com.tasktracker.model.Status.DONE order by t.dueDate desc, t.id desc")
+    List<Task> findOpenDueBy(@Param("ownerId") Long ownerId, @Param("day") LocalDate day, Pageable limit);
+
+    // Records that the listed tasks were included in a due-soon reminder for their current due date
+    @Modifying
+    @Query("update Task t set t.remindedDueDate = t.dueDate, t.remindedAt = :now where t.id in :ids")
+    int markReminded(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // [owner, totalTasks, doneTasks] for every user with at least one task
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t.owner, count(t), sum(case when t.status = com.tasktracker.model.Status.DONE then 1 else 0 end)"
+            + " from Task t where t.owner.id > :afterOwner and t.owner.id <= :lastOwner"
+            + " group by t.owner order by t.owner.id")
+    Stream<Object[]> streamTaskTotalsByOwner(@Param("afterOwner") long afterOwner, @Param("lastOwner") long lastOwner);
+
+    // Status transitions in one statement, limited to the owner's tasks in one of the from states;
+    // returns how many changed
+    @Modifying
+    @Query("update Task t set t.status = :to, t.completedAt = :completedAt"
+            + " where t.id in :ids and t.owner.id = :ownerId and t.status in :from")
+    int transition(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId,
+            @Param("from") Collection<Status> from, @Param("to") Status to,
+            @Param("completedAt") LocalDateTime completedAt);
+
+    // The owner's tasks among the ids that a transition from these states would move, locked until the
+    // caller commits so the update that follows moves exactly these
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.id from Task t where t.id in :ids and t.owner.id = :ownerId and t.status in :from order by t.id")
+    List<Long> lockMovable(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId,
+            @Param("from") Collection<Status> from);
+
+    @Query("select new com.tasktracker.model.TaskState(t.id, t.status, t.completedAt) from Task t"
+            + " where t.id in :ids and t.owner.id = :ownerId order by t.id")
+    List<TaskState> findStates(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    // One status and priority of the owner's dated tasks, soonest due first: with both fixed this is a single
+    // range of idx_task_owner_status_priority_due, read in index order (InnoDB appends the id to it) and cut
+    // off at the page, so no sort. An "in" over several statuses or "nulls last" would be several ranges or
+    // a sort expression, and MySQL would filesort every matching task before the limit.
+    @Query("select new com.tasktracker.model.NextTask(t.id, t.title, t.priority, t.status, t.dueDate) from Task t"
+            + " where t.owner.id = :ownerId and t.status = :status and t.priority = :priority"
+            + " and t.dueDate is not null order by t.dueDate, t.id")
+    List<NextTask> findNextDated(@Param("ownerId") Long ownerId, @Param("status") Status status,
+            @Param("priority") Priority priority, Pageable limit);
+
+    // the same range's undated tasks, which come after the dated ones, in id order
+    @Query("select new com.tasktracker.model.NextTask(t.id, t.title, t.priority, t.status, t.dueDate) from Task t"
+            + " where t.owner.id = :ownerId and t.status = :status and t.priority = :priority"
+            + " and t.dueDate is null order by t.id")
+    List<NextTask> findNextUndated(@Param("ownerId") Long ownerId, @Param("status") Status status,
+            @Param("priority") Priority priority, Pageable limit);
+
+    // [categoryId, taskCount] pairs for every category that has tasks
+    @Query("select t.category.id, count(t) from Task t where t.category is not null group by t.category.id")
+    List<Object[]> countByCategory();
 }
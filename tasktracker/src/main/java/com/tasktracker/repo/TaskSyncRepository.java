@@ -0,0 +1,51 @@
+package com.tasktracker.repo;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tasktracker.model.TaskChange;
+import com.tasktracker.model.TaskSync;
+
+public interface TaskSyncRepository extends JpaRepository<TaskSync, Long> {
+
+    // Takes the user's next sequence number; the counter row stays locked until the caller commits, so
+    // the next change of the same user gets a higher number and commits after this one
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert into task_sync_counter (user_id, seq) values (:userId, 1)"
+            + " on duplicate key update seq = seq + 1", nativeQuery = true)
+    int advance(@Param("userId") Long userId);
+
+    // Stamps one task with the number advance just took, creating its row on the task's first change
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "insert into task_sync (task_id, user_id, seq, deleted)"
+            + " select :taskId, :userId, c.seq, :deleted from task_sync_counter c where c.user_id = :userId"
+            + " on duplicate key update seq = values(seq), deleted = values(deleted)", nativeQuery = true)
+    int record(@Param("userId") Long userId, @Param("taskId") Long taskId, @Param("deleted") boolean deleted);
+
+    // The same for several of the user's existing tasks at once; they share the number
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "update task_sync set seq = (select c.seq from task_sync_counter c where c.user_id = :userId)"
+            + " where user_id = :userId and task_id in :taskIds", nativeQuery = true)
+    int recordAll(@Param("userId") Long userId, @Param("taskIds") Collection<Long> taskIds);
+
+    // The user's changes after the (seq, taskId) cursor in sequence order, each with the task's current
+    // state; a deleted task joins no row and comes back as its id alone
+    @Query("select new com.tasktracker.model.TaskChange(s.taskId, s.seq, s.deleted, t.title, t.description,"
+            + " t.priority, t.status, t.dueDate, c.id, t.completedAt)"
+            + " from TaskSync s left join Task t on t.id = s.taskId left join t.category c"
+            + " where s.userId = :userId and (s.seq > :seq or (s.seq = :seq and s.taskId > :taskId))"
+            + " order by s.seq, s.taskId")
+    List<TaskChange> findChanges(@Param("userId") Long userId, @Param("seq") long seq,
+            @Param("taskId") long taskId, Pageable limit);
+}
@@ -0,0 +1,83 @@
+package com.tasktracker.security;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * The JWT cookies that authenticate browser pages in place of an HTTP session. Both are HttpOnly,
+ * so page scripts can't read them, and SameSite=Lax, so other sites can't send them with
+ * cross-site POST/PUT/DELETE requests (the chain has CSRF tokens disabled).
+ */
+@Component
+public class AuthCookies {
+
+    static final String ACCESS_COOKIE = "TT_ACCESS";
+    static final String REFRESH_COOKIE = "TT_REFRESH";
+
+    private final JwtUtil jwtUtil;
+    private final TokenDenylist denylist;
+    private final boolean secure;
+
+    public AuthCookies(JwtUtil jwtUtil, TokenDenylist denylist,
+            @Value("${tasktracker.security.auth-cookie.secure:false}") boolean secure) {
+        this.jwtUtil = jwtUtil;
+        this.denylist = denylist;
+        this.secure = secure;
+    }
+
+    /**
+     * Sets a fresh access and refresh token after a form login
+     */
+    public void issue(HttpServletResponse response, AuthenticatedUser user) {
+        writeAccess(response, jwtUtil.generateToken(user));
+        write(response, REFRESH_COOKIE, jwtUtil.generateRefreshToken(user), jwtUtil.getRefreshTokenTtlMs());
+    }
+
+    public void writeAccess(HttpServletResponse response, String accessToken) {
+        write(response, ACCESS_COOKIE, accessToken, jwtUtil.getAccessTokenTtlMs());
+    }
+
+    /**
+     * Revokes whatever tokens the request carries and tells the browser to drop both cookies
+     */
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+        read(request, ACCESS_COOKIE).flatMap(jwtUtil::verify)
+                .ifPresent(token -> denylist.revoke(token.tokenId(), token.expiresAt().getTime()));
+        read(request, REFRESH_COOKIE).flatMap(jwtUtil::verifyRefresh)
+                .ifPresent(token -> denylist.revoke(token.tokenId(), token.expiresAt().getTime()));
+        write(response, ACCESS_COOKIE, "", 0);
+        write(response, REFRESH_COOKIE, "", 0);
+    }
+
+    public Optional<String> read(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return Optional.of(cookie.getValue());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void write(HttpServletResponse response, String name, String value, long maxAgeMs) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(Duration.ofMillis(maxAgeMs))
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
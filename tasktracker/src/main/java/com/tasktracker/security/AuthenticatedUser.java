@@ -0,0 +1,23 @@
+package com.tasktracker.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+//the logged in user as spring security sees it, plus the database id so callers don't have to look it up again
+//extends User so @AuthenticationPrincipal User keeps working everywhere
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String username, String password,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tasktracker.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of the request thread. At most {@code threads}
+ * hashes run at once and at most {@code queueCapacity} wait; anything beyond that is rejected
+ * with {@link PasswordHashingRejectedException} right away, so a login burst can't take every
+ * CPU away from normal traffic. Hashes with a lower cost than the configured one report
+ * {@link #upgradeEncoding}, which makes Spring Security rehash them on the next successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs,
+            MeterRegistry meters) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("tasktracker.password.hashing").tag("operation", "encode")
+                .description("Time spent hashing passwords, excluding queueing").register(meters);
+        this.matchesTimer = Timer.builder("tasktracker.password.hashing").tag("operation", "matches")
+                .description("Time spent hashing passwords, excluding queueing").register(meters);
+        this.queueFull = Counter.builder("tasktracker.password.hashing.rejected").tag("reason", "queue_full")
+                .register(meters);
+        this.timedOut = Counter.builder("tasktracker.password.hashing.rejected").tag("reason", "timeout")
+                .register(meters);
+        Gauge.builder("tasktracker.password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Hashes waiting for a thread").register(meters);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // only parses the hash, cheap enough for the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new PasswordHashingRejectedException("Too many password checks in progress");
+        }
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            timedOut.increment();
+            throw new PasswordHashingRejectedException("Password check timed out");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for a password check");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
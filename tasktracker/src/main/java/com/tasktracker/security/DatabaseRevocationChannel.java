@@ -0,0 +1,56 @@
+package com.tasktracker.security;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tasktracker.model.RevokedToken;
+import com.tasktracker.repo.RevokedTokenRepository;
+
+//revocation channel over the revoked_token table every instance already shares:
+//publishing is the insert itself, other instances pick new rows up on their next poll
+@Component
+@ConditionalOnProperty(name = "tasktracker.security.revocation.channel", havingValue = "database", matchIfMissing = true)
+public class DatabaseRevocationChannel implements RevocationChannel {
+
+    private final RevokedTokenRepository revokedTokens;
+    private final long overlapMs;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long watermark = System.currentTimeMillis();
+
+    public DatabaseRevocationChannel(RevokedTokenRepository revokedTokens,
+            @Value("${tasktracker.security.revocation.poll-overlap-ms:5000}") long overlapMs) {
+        this.revokedTokens = revokedTokens;
+        this.overlapMs = overlapMs;
+    }
+
+    @Override
+    public void publish(String tokenId, long expiresAt) {
+        // the row written by TokenDenylist is the message
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${tasktracker.security.revocation.poll-ms:5000}")
+    public void poll() {
+        // re-read a little before the watermark so rows committed late or from a skewed clock are not missed
+        long from = watermark - overlapMs;
+        long newest = watermark;
+        try {
+            for (RevokedToken revoked : revokedTokens.findByRevokedAtGreaterThanEqual(from)) {
+                listeners.forEach(listener -> listener.revoked(revoked.getTokenId(), revoked.getExpiresAt()));
+                newest = Math.max(newest, revoked.getRevokedAt());
+            }
+            watermark = newest;
+        } catch (RuntimeException e) {
+            System.out.println("[REVOCATION] Poll failed: " + e.getMessage());
+        }
+    }
+}
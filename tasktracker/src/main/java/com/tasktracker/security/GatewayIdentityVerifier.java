@@ -0,0 +1,57 @@
+package com.tasktracker.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.gatewayidentity.IdentityHeaders;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Checks the caller identity the API gateway forwards in place of the JWT it already verified.
+ * The X-Auth-* headers carry an HMAC-SHA256 signature made with a secret shared by the gateway and
+ * the services, which is far cheaper to check than the token itself. The token's id and expiry are
+ * signed along with the caller, so revocation applies to gateway traffic too. The header names and
+ * the signature come from the gateway-identity library's {@link IdentityHeaders}.
+ */
+@Component
+public class GatewayIdentityVerifier {
+
+    private final byte[] secret;
+    private final long maxAgeSeconds;
+
+    public GatewayIdentityVerifier(@Value("${tasktracker.security.gateway-identity.secret:}") String secret,
+            @Value("${tasktracker.security.gateway-identity.max-age-seconds:300}") long maxAgeSeconds) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public boolean isPresent(HttpServletRequest request) {
+        return secret.length > 0 && request.getHeader(IdentityHeaders.SIGNATURE) != null;
+    }
+
+    /**
+     * The forwarded identity, or empty if the headers are incomplete, stale or not signed by the gateway
+     */
+    public Optional<VerifiedToken> verify(HttpServletRequest request) {
+        if (!IdentityHeaders.isValid(secret, maxAgeSeconds, request::getHeader)) {
+            return Optional.empty();
+        }
+        String tokenId = request.getHeader(IdentityHeaders.TOKEN_ID);
+        String roles = request.getHeader(IdentityHeaders.ROLES);
+        return Optional.of(new VerifiedToken(tokenId.isEmpty() ? null : tokenId,
+                request.getHeader(IdentityHeaders.USERNAME), Long.valueOf(request.getHeader(IdentityHeaders.USER_ID)),
+                roles.isEmpty() ? List.of() : List.of(roles.split(",")),
+                new Date(Long.parseLong(request.getHeader(IdentityHeaders.TOKEN_EXPIRES)) * 1000)));
+    }
+
+    String sign(Function<String, String> header) {
+        return IdentityHeaders.sign(secret, header);
+    }
+}
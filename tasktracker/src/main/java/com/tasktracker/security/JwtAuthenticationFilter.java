@@ -6,43 +6,84 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.tasktracker.model.Role;
+
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserStatusCache userStatusCache;
+    @Autowired
+    private GatewayIdentityVerifier gatewayIdentity;
+    @Autowired
+    private TokenDenylist denylist;
+    @Autowired
+    private AuthCookies authCookies;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
-        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-                        null, userDetails.getAuthorities());
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<VerifiedToken> token = Optional.empty();
+            if (gatewayIdentity.isPresent(request)) {
+                // the gateway already verified the JWT, only its signed identity headers are checked here;
+                // revocation is not checked there, so the token id it forwards is checked against the denylist
+                token = gatewayIdentity.verify(request)
+                        .filter(verified -> !denylist.isRevoked(verified.tokenId()));
+            } else if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                // one parse checks signature and expiry and yields the claims; bad tokens just stay unauthenticated
+                token = jwtUtil.verify(authHeader.substring(7))
+                        .filter(verified -> !denylist.isRevoked(verified.tokenId()));
+            } else {
+                // browser pages carry the token in a cookie instead of a session
+                token = authCookies.read(request, AuthCookies.ACCESS_COOKIE)
+                        .flatMap(jwtUtil::verify)
+                        .filter(verified -> !denylist.isRevoked(verified.tokenId()));
+                if (token.isEmpty()) {
+                    token = renewAccessCookie(request, response);
+                }
+            }
+            Long userId = token.map(VerifiedToken::userId).orElse(null);
+            // Identity comes from the token claims; the cache only confirms the user still exists
+            // and supplies the current role, so a role change wins over the role in the token
+            Optional<Role> role = userId != null ? userStatusCache.currentRole(userId) : Optional.empty();
+            if (role.isPresent()) {
+                AuthenticatedUser principal = new AuthenticatedUser(userId, token.get().username(), "",
+                        List.of(new SimpleGrantedAuthority("ROLE_" + role.get().name())));
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal,
+                        null, principal.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    // the short-lived access cookie expired: mint a new one from the refresh cookie, with the current role
+    private Optional<VerifiedToken> renewAccessCookie(HttpServletRequest request, HttpServletResponse response) {
+        Optional<VerifiedToken> refresh = authCookies.read(request, AuthCookies.REFRESH_COOKIE)
+                .flatMap(jwtUtil::verifyRefresh)
+                .filter(verified -> !denylist.isRevoked(verified.tokenId()));
+        Optional<Role> role = refresh.flatMap(verified -> userStatusCache.currentRole(verified.userId()));
+        if (role.isEmpty()) {
+            return Optional.empty();
+        }
+        AuthenticatedUser user = new AuthenticatedUser(refresh.get().userId(), refresh.get().username(), "",
+                List.of(new SimpleGrantedAuthority("ROLE_" + role.get().name())));
+        authCookies.writeAccess(response, jwtUtil.generateToken(user));
+        return refresh;
+    }
 }
@@ -0,0 +1,261 @@
+package com.tasktracker.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * JWT signing and verification keys, loaded from a PKCS12 keystore that every node shares.
+ *
+ * Each alias is a key id (the token's "kid" header). The newest key in the store signs new tokens
+ * (or the configured signing alias); every other key still verifies. Keys therefore rotate by adding
+ * the new key to the shared store and removing the old key once its tokens have expired. A new key
+ * only starts signing once it has been in the store for twice the reload interval, so every node has
+ * reloaded and verifies it by then; until then the previous key keeps signing. "In the store" is the
+ * entry's creation date, or when this node first loaded the alias if that is earlier (a store rewritten
+ * with fresh dates). Entries can be HMAC secret keys, private
+ * keys with a certificate (RSA/EC, verified with the certificate's public key) or bare trusted
+ * certificates, which only verify - that is all a gateway needs.
+ *
+ * Without a configured keystore a local stand-in is used: an HMAC key in a keystore file created on
+ * first start, so restarts and other nodes started from the same directory keep accepting tokens.
+ * Its password is fixed and only the file's owner-only permissions protect it, so it is refused
+ * unless the dev or test profile is active.
+ */
+@Component
+public class JwtKeyRing {
+
+    static final String LOCAL_KEY_ID = "local-1";
+    private static final Profiles LOCAL_PROFILES = Profiles.of("dev", "test");
+    private static final char[] LOCAL_PASSWORD = "tasktracker-local".toCharArray();
+    private static final FileAttribute<?> OWNER_ONLY =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+    private final Path path;
+    private final char[] password;
+    private final String signingAlias; // blank: newest key signs
+    private final boolean localStandIn;
+    private final long activationMs;
+    // alias -> when this node first loaded it
+    private final Map<String, Long> firstSeen = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot;
+    private volatile long loadedModified;
+
+    @Autowired
+    public JwtKeyRing(@Value("${tasktracker.security.jwt.keystore.path:}") String path,
+            @Value("${tasktracker.security.jwt.keystore.password:}") String password,
+            @Value("${tasktracker.security.jwt.keystore.signing-alias:}") String signingAlias,
+            @Value("${tasktracker.security.jwt.keystore.local-path:.jwt-keys.p12}") String localPath,
+            @Value("${tasktracker.security.jwt.keystore.reload-ms:60000}") long reloadMs,
+            Environment environment) {
+        this.localStandIn = path.isBlank();
+        this.path = Path.of(localStandIn ? localPath : path);
+        this.password = localStandIn ? LOCAL_PASSWORD : password.toCharArray();
+        this.signingAlias = localStandIn ? "" : signingAlias;
+        this.activationMs = 2 * reloadMs;
+        if (localStandIn) {
+            if (!environment.acceptsProfiles(LOCAL_PROFILES)) {
+                throw new IllegalStateException("No JWT keystore configured (JWT_KEYSTORE_PATH); the local stand-in"
+                        + " key is only used with the dev or test profile");
+            }
+            System.out.println("[JWT] WARNING: no keystore configured, signing with the local stand-in key in "
+                    + this.path.toAbsolutePath() + " - for development only");
+            if (!Files.exists(this.path)) {
+                createLocalKeyStore();
+            }
+        }
+        reload();
+    }
+
+    // fixed keys, used by tests and benchmarks
+    JwtKeyRing(String keyId, Key key) {
+        this.path = null;
+        this.password = null;
+        this.signingAlias = keyId;
+        this.localStandIn = false;
+        this.activationMs = 0;
+        this.snapshot = new Snapshot(List.of(new Signer(keyId, key, 0)), Map.of(keyId, key));
+    }
+
+    /**
+     * The key new tokens are signed with, and its id for the "kid" header
+     */
+    public Signer signer() {
+        List<Signer> signers = snapshot.signers();
+        if (signers.isEmpty()) {
+            throw new IllegalStateException("No JWT signing key configured (tasktracker.security.jwt.keystore.signing-alias)");
+        }
+        long activeBefore = System.currentTimeMillis() - activationMs;
+        for (Signer signer : signers) {
+            if (Math.min(signer.createdAt(), firstSeen.getOrDefault(signer.keyId(), Long.MAX_VALUE)) <= activeBefore) {
+                return signer;
+            }
+        }
+        // none has been around long enough (a new store): the oldest, which every node loaded first
+        return signers.get(signers.size() - 1);
+    }
+
+    public String signingKeyId() {
+        return signer().keyId();
+    }
+
+    /**
+     * Key that verifies tokens with this key id, or null if the id is unknown (or was rotated out)
+     */
+    public Key verificationKey(String keyId) {
+        return keyId == null ? null : snapshot.verificationKeys().get(keyId);
+    }
+
+    /**
+     * Picks up keys added or removed in the shared keystore
+     */
+    @Scheduled(fixedDelayString = "${tasktracker.security.jwt.keystore.reload-ms:60000}")
+    public void reloadIfChanged() {
+        if (path == null) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != loadedModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            // keep serving with the keys already loaded
+            System.out.println("[JWT] Could not reload keystore " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void reload() {
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(path)) {
+                store.load(in, password);
+            }
+
+            long now = System.currentTimeMillis();
+            Map<String, Key> verificationKeys = new HashMap<>();
+            List<Signer> signers = new ArrayList<>();
+            for (String alias : Collections.list(store.aliases())) {
+                Key verificationKey;
+                Key privateOrSecret = store.isKeyEntry(alias) ? store.getKey(alias, password) : null;
+                if (privateOrSecret instanceof SecretKey) {
+                    verificationKey = privateOrSecret;
+                } else {
+                    Certificate certificate = store.getCertificate(alias);
+                    if (certificate == null) {
+                        continue;
+                    }
+                    verificationKey = certificate.getPublicKey();
+                }
+                verificationKeys.put(alias, verificationKey);
+                firstSeen.putIfAbsent(alias, now);
+
+                boolean canSign = privateOrSecret instanceof SecretKey || privateOrSecret instanceof PrivateKey;
+                if (canSign && (signingAlias.isBlank() || alias.equals(signingAlias))) {
+                    Date created = store.getCreationDate(alias);
+                    signers.add(new Signer(alias, privateOrSecret, created == null ? now : created.getTime()));
+                }
+            }
+            if (!signingAlias.isBlank() && signers.isEmpty()) {
+                throw new IllegalStateException("Signing key '" + signingAlias + "' not found in " + path);
+            }
+            firstSeen.keySet().retainAll(verificationKeys.keySet());
+
+            signers.sort(NEWEST_FIRST);
+            snapshot = new Snapshot(List.copyOf(signers), Map.copyOf(verificationKeys));
+            loadedModified = modified;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load JWT keystore " + path, e);
+        }
+    }
+
+    // newest creation date first, ties to the greater alias so every node picks the same key
+    private static final Comparator<Signer> NEWEST_FIRST =
+            Comparator.comparingLong(Signer::createdAt).thenComparing(Signer::keyId).reversed();
+
+    private void createLocalKeyStore() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("HmacSHA256");
+            generator.init(256);
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(null, null);
+            store.setEntry(LOCAL_KEY_ID, new KeyStore.SecretKeyEntry(generator.generateKey()),
+                    new KeyStore.PasswordProtection(LOCAL_PASSWORD));
+            // written to an owner-only temp file and then published under its name in one step, so a
+            // node starting at the same time either wins or loads the winner's key, never a half-written file
+            Path dir = path.toAbsolutePath().getParent();
+            Path temp = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                    ? Files.createTempFile(dir, ".jwt-keys", ".tmp", OWNER_ONLY)
+                    : Files.createTempFile(dir, ".jwt-keys", ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    store.store(out, LOCAL_PASSWORD);
+                }
+                publish(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create local JWT keystore " + path, e);
+        }
+    }
+
+    // ATOMIC_MOVE replaces an existing target on POSIX, so the no-replace publish is a hard link,
+    // which fails if the name exists; file systems without links fall back to the move
+    private void publish(Path temp) throws IOException {
+        try {
+            try {
+                Files.createLink(path, temp);
+            } catch (UnsupportedOperationException e) {
+                if (Files.exists(path)) {
+                    throw new FileAlreadyExistsException(path.toString());
+                }
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            System.out.println("[JWT] Created the local stand-in signing key in " + path.toAbsolutePath());
+        } catch (FileAlreadyExistsException e) {
+            // another node created it first; everyone uses that one
+        }
+    }
+
+    /**
+     * A key that can sign, with when it was added to the store (epoch millis)
+     */
+    public record Signer(String keyId, Key key, long createdAt) {
+    }
+
+    // signers newest first
+    private record Snapshot(List<Signer> signers, Map<String, Key> verificationKeys) {
+    }
+}
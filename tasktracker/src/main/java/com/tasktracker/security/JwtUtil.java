@@ -1,56 +1,178 @@
 package com.tasktracker.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class JwtUtil {
-    private final Key secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-    private final long jwtExpirationMs = 86400000; // 1 day
+    private final JwtKeyRing keyRing;
 
-    public String generateToken(String username) {
+    // access tokens are short-lived, clients get new ones with the refresh token
+    @Value("${tasktracker.security.jwt.access-ttl-ms:900000}")
+    private long accessTokenTtlMs = 900000; // 15 minutes
+    @Value("${tasktracker.security.jwt.refresh-ttl-ms:1209600000}")
+    private long refreshTokenTtlMs = 1209600000; // 14 days
+
+    // the token carries everything the filter needs, so requests don't have to load the user
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    // refresh tokens are marked so they can't be used as access tokens; tokens without the claim are access tokens
+    static final String TOKEN_TYPE_CLAIM = "typ";
+    static final String REFRESH_TYPE = "refresh";
+
+    // parsers are immutable and thread-safe, so one is built up front and shared;
+    // the key is looked up per token from its kid header
+    private final JwtParser parser;
+
+    // recently verified tokens keyed by their signature; a hit skips the HMAC check. Lookups take no lock;
+    // once the map grows past its size one thread sweeps it, see remember()
+    private final int verifiedCacheSize;
+    private final Map<String, CachedToken> verified = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public JwtUtil(JwtKeyRing keyRing,
+            @Value("${tasktracker.security.jwt.verified-cache-size:1024}") int verifiedCacheSize) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
+
+    public String generateToken(AuthenticatedUser user) {
+        List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith("ROLE_") ? authority.substring(5) : authority)
+                .toList();
+        JwtKeyRing.Signer signer = keyRing.signer();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signer.keyId())
+                .setId(UUID.randomUUID().toString())
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, roles)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtlMs))
+                .signWith(signer.key())
+                .compact();
+    }
+
+    // only identifies the user; roles are looked up again when it is exchanged
+    public String generateRefreshToken(AuthenticatedUser user) {
+        JwtKeyRing.Signer signer = keyRing.signer();
         return Jwts.builder()
-                .setSubject(username)
+                .setHeaderParam(JwsHeader.KEY_ID, signer.keyId())
+                .setId(UUID.randomUUID().toString())
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TYPE)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(secretKey)
+                .setExpiration(new Date(System.currentTimeMillis() + refreshTokenTtlMs))
+                .signWith(signer.key())
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public long getAccessTokenTtlMs() {
+        return accessTokenTtlMs;
+    }
+
+    public long getRefreshTokenTtlMs() {
+        return refreshTokenTtlMs;
+    }
+
+    /**
+     * Verify an access token's signature and expiry with a single parse. Empty for malformed, forged or
+     * expired tokens, and for refresh tokens. Revocation is checked separately, see TokenDenylist.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        return verify(token, false);
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Same as {@link #verify(String)}, for refresh tokens only
+     */
+    public Optional<VerifiedToken> verifyRefresh(String token) {
+        return verify(token, true);
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private Optional<VerifiedToken> verify(String token, boolean refresh) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        if (verifiedCacheSize > 0) {
+            CachedToken cached = verified.get(signature);
+            // the whole token must match, not just the signature segment, and its key must not have been rotated out
+            if (cached != null && cached.token().equals(token) && keyRing.verificationKey(cached.keyId()) != null) {
+                return cached.result().isExpired() || cached.refresh() != refresh ? Optional.empty()
+                        : Optional.of(cached.result());
+            }
+        }
+
+        Jws<Claims> jws;
+        try {
+            jws = parser.parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        VerifiedToken result = toVerifiedToken(jws.getBody());
+        boolean isRefresh = REFRESH_TYPE.equals(jws.getBody().get(TOKEN_TYPE_CLAIM, String.class));
+        if (verifiedCacheSize > 0) {
+            remember(signature, new CachedToken(token, jws.getHeader().getKeyId(), isRefresh, result));
+        }
+        return isRefresh == refresh ? Optional.of(result) : Optional.empty();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Past the size, expired tokens go first, then arbitrary ones down to three quarters of it, so a cache
+    // full of live tokens isn't swept again on every put; threads that find a sweep running just carry on
+    private void remember(String signature, CachedToken token) {
+        verified.put(signature, token);
+        if (verified.size() > verifiedCacheSize && sweeping.compareAndSet(false, true)) {
+            try {
+                verified.values().removeIf(cached -> cached.result().isExpired());
+                Iterator<String> signatures = verified.keySet().iterator();
+                while (verified.size() > verifiedCacheSize * 3 / 4 && signatures.hasNext()) {
+                    signatures.next();
+                    signatures.remove();
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
     }
 
-    public boolean isTokenValid(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    @SuppressWarnings("unchecked")
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        List<String> roles = claims.get(ROLES_CLAIM, List.class);
+        return new VerifiedToken(claims.getId(), claims.getSubject(), claims.get(USER_ID_CLAIM, Long.class),
+                roles != null ? List.copyOf(roles) : List.of(), claims.getExpiration());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private record CachedToken(String token, String keyId, boolean refresh, VerifiedToken result) {
     }
 }
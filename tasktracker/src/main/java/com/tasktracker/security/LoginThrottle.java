@@ -0,0 +1,89 @@
+package com.tasktracker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//token buckets per username and per client IP, checked before any password is hashed.
+//buckets live in bounded LRU maps, so a flood of distinct usernames or addresses can't grow memory
+@Component
+public class LoginThrottle {
+
+    private final Buckets byUsername;
+    private final Buckets byIp;
+    private final Counter usernameRejections;
+    private final Counter ipRejections;
+
+    public LoginThrottle(MeterRegistry meters,
+            @Value("${tasktracker.security.login-throttle.username.capacity:5}") int usernameCapacity,
+            @Value("${tasktracker.security.login-throttle.username.refill-per-minute:5}") double usernamePerMinute,
+            @Value("${tasktracker.security.login-throttle.ip.capacity:30}") int ipCapacity,
+            @Value("${tasktracker.security.login-throttle.ip.refill-per-minute:60}") double ipPerMinute,
+            @Value("${tasktracker.security.login-throttle.max-tracked:10000}") int maxTracked) {
+        this.byUsername = new Buckets(usernameCapacity, usernamePerMinute, maxTracked);
+        this.byIp = new Buckets(ipCapacity, ipPerMinute, maxTracked);
+        this.usernameRejections = Counter.builder("tasktracker.login.throttled").tag("scope", "username")
+                .register(meters);
+        this.ipRejections = Counter.builder("tasktracker.login.throttled").tag("scope", "ip").register(meters);
+    }
+
+    /**
+     * Takes one attempt from both buckets. False if either is empty; the caller should answer 429.
+     */
+    public boolean tryAcquire(String username, String ip) {
+        if (ip != null && !byIp.tryAcquire(ip)) {
+            ipRejections.increment();
+            return false;
+        }
+        // usernames are case-insensitive here so "Alice" and "alice" share a bucket
+        if (username != null && !byUsername.tryAcquire(username.trim().toLowerCase())) {
+            usernameRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private static final class Buckets {
+        private final int capacity;
+        private final double refillPerMs;
+        private final Map<String, Bucket> buckets;
+
+        Buckets(int capacity, double refillPerMinute, int maxTracked) {
+            this.capacity = capacity;
+            this.refillPerMs = refillPerMinute / 60_000.0;
+            this.buckets = new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxTracked;
+                }
+            };
+        }
+
+        synchronized boolean tryAcquire(String key) {
+            long now = System.currentTimeMillis();
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * refillPerMs);
+            bucket.updatedAt = now;
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens -= 1;
+            return true;
+        }
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.tasktracker.security;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+//applies the login throttle to the form login; the JSON login in AuthController checks it itself
+@Component
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !("POST".equals(request.getMethod()) && "/login".equals(request.getServletPath()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!loginThrottle.tryAcquire(request.getParameter("username"), request.getRemoteAddr())) {
+            // status set directly, an error dispatch would end up at the login page behind security
+            response.setStatus(429);
+            response.setHeader("Retry-After", "60");
+            response.getWriter().write("Too many login attempts");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
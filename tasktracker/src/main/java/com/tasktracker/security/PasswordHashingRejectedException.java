@@ -0,0 +1,12 @@
+package com.tasktracker.security;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+//password hashing was shed because the hashing executor is saturated; the caller should retry later.
+//an InternalAuthenticationServiceException so login attempts fail fast instead of falling through to other providers
+public class PasswordHashingRejectedException extends InternalAuthenticationServiceException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
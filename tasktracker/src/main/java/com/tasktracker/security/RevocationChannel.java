@@ -0,0 +1,26 @@
+package com.tasktracker.security;
+
+/**
+ * Carries token revocations between tasktracker instances so each one can add them to its
+ * in-memory denylist. The default implementation polls the shared database
+ * ({@link DatabaseRevocationChannel}); a message broker can be plugged in by providing another
+ * implementation and setting tasktracker.security.revocation.channel to something other than
+ * "database".
+ */
+public interface RevocationChannel {
+
+    /**
+     * Tell the other instances about a revocation. The exact record is already stored when this is called.
+     */
+    void publish(String tokenId, long expiresAt);
+
+    /**
+     * Register for revocations from any instance. Delivery may repeat and may include this instance's own.
+     */
+    void subscribe(Listener listener);
+
+    @FunctionalInterface
+    interface Listener {
+        void revoked(String tokenId, long expiresAt);
+    }
+}
@@ -0,0 +1,104 @@
+package com.tasktracker.security;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tasktracker.model.RevokedToken;
+import com.tasktracker.repo.RevokedTokenRepository;
+
+/**
+ * Revoked token ids. Every request checks an in-memory Bloom filter, which answers "not revoked"
+ * for almost all tokens with a few hashes and no locking. Only a filter hit, a real revocation or
+ * a false positive, is confirmed against the revoked_token table. Revocations from other instances
+ * arrive through the {@link RevocationChannel}.
+ */
+@Component
+public class TokenDenylist {
+
+    private final RevokedTokenRepository revokedTokens;
+    private final RevocationChannel channel;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+
+    // exact answers for filter hits, so a revoked token that keeps being retried costs one query
+    private final Map<String, Boolean> confirmed;
+
+    public TokenDenylist(RevokedTokenRepository revokedTokens, RevocationChannel channel,
+            @Value("${tasktracker.security.revocation.expected-revocations:100000}") int expectedRevocations,
+            @Value("${tasktracker.security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${tasktracker.security.revocation.confirmed-cache-size:1024}") int confirmedCacheSize) {
+        this.revokedTokens = revokedTokens;
+        this.channel = channel;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.confirmed = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > confirmedCacheSize;
+            }
+        };
+        rebuild();
+        channel.subscribe((tokenId, expiresAt) -> remember(tokenId));
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        Boolean revoked;
+        synchronized (confirmed) {
+            revoked = confirmed.get(tokenId);
+        }
+        if (revoked == null) {
+            revoked = revokedTokens.existsById(tokenId);
+            synchronized (confirmed) {
+                confirmed.put(tokenId, revoked);
+            }
+        }
+        return revoked;
+    }
+
+    /**
+     * Revoke a token until it expires. Takes effect immediately on this instance, and on the others once
+     * the channel delivers it.
+     */
+    public void revoke(String tokenId, long expiresAt) {
+        if (tokenId == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokens.save(new RevokedToken(tokenId, expiresAt, System.currentTimeMillis()));
+        remember(tokenId);
+        channel.publish(tokenId, expiresAt);
+    }
+
+    /**
+     * Drop expired revocations and rebuild the filter from what is left, since Bloom filters can't remove entries.
+     */
+    @Scheduled(cron = "${tasktracker.security.revocation.rebuild-cron:0 30 * * * *}")
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        revokedTokens.deleteExpired(now);
+        List<RevokedToken> live = revokedTokens.findByExpiresAtGreaterThan(now);
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedRevocations, live.size() * 2), falsePositiveRate);
+        live.forEach(revoked -> rebuilt.put(revoked.getTokenId()));
+        filter = rebuilt;
+        // revocations that landed while the new filter was being built
+        revokedTokens.findByRevokedAtGreaterThanEqual(now).forEach(revoked -> rebuilt.put(revoked.getTokenId()));
+        synchronized (confirmed) {
+            confirmed.clear();
+        }
+    }
+
+    private void remember(String tokenId) {
+        filter.put(tokenId);
+        synchronized (confirmed) {
+            confirmed.put(tokenId, true);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tasktracker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tasktracker.model.Role;
+import com.tasktracker.repo.AppUserRepository;
+
+//bounded LRU cache of each user's current role, so JWT requests don't hit the users table every time
+//a role change or a deleted user is picked up at the latest after the ttl
+@Component
+public class UserStatusCache {
+
+    private final AppUserRepository users;
+    private final long ttlMs;
+    private final Map<Long, Entry> entries;
+
+    public UserStatusCache(AppUserRepository users,
+            @Value("${tasktracker.security.user-status-cache.max-size:10000}") int maxSize,
+            @Value("${tasktracker.security.user-status-cache.ttl-ms:60000}") long ttlMs) {
+        this.users = users;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Current role of the user, or empty if the user no longer exists
+     */
+    public Optional<Role> currentRole(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry == null || now - entry.loadedAt() > ttlMs) {
+            // loaded outside the lock; two threads missing at once both query, which is harmless
+            entry = new Entry(users.findRoleById(userId).orElse(null), now);
+            synchronized (entries) {
+                entries.put(userId, entry);
+            }
+        }
+        return Optional.ofNullable(entry.role());
+    }
+
+    private record Entry(Role role, long loadedAt) {
+    }
+}
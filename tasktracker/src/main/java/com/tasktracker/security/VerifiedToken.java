@@ -0,0 +1,13 @@
+package com.tasktracker.security;
+
+import java.util.Date;
+import java.util.List;
+
+//result of verifying a jwt once: signature checked, not expired, claims read.
+//tokenId is the jti used for revocation; null for tokens issued before it existed
+public record VerifiedToken(String tokenId, String username, Long userId, List<String> roles, Date expiresAt) {
+
+    public boolean isExpired() {
+        return expiresAt.before(new Date());
+    }
+}
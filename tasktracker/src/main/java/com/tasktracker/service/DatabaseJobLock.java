@@ -0,0 +1,41 @@
+package com.tasktracker.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.tasktracker.repo.SchedulerLockRepository;
+
+//leases in the scheduler_lock table every instance already shares: taking one is a conditional update
+//that only matches when the current lease has run out, so two instances can't both win
+@Component
+@ConditionalOnProperty(name = "tasktracker.scheduling.lock", havingValue = "database", matchIfMissing = true)
+public class DatabaseJobLock implements JobLock {
+
+    private final SchedulerLockRepository locks;
+    private final String owner;
+    private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+    public DatabaseJobLock(SchedulerLockRepository locks,
+            @Value("${tasktracker.scheduling.node-id:}") String nodeId) {
+        this.locks = locks;
+        this.owner = NodeId.resolve(nodeId);
+    }
+
+    @Override
+    public boolean tryAcquire(String job, long until) {
+        if (!created.contains(job)) {
+            locks.createIfMissing(job);
+            created.add(job);
+        }
+        return locks.acquire(job, owner, System.currentTimeMillis(), until) == 1;
+    }
+
+    @Override
+    public boolean extend(String job, long until) {
+        return locks.extend(job, owner, until) == 1;
+    }
+}
@@ -0,0 +1,242 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.model.IdempotentRequest;
+import com.tasktracker.repo.IdempotentRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request sent with an Idempotency-Key at most once per user and key, and answers repeats of it
+ * with the stored response. A key is claimed in the idempotent_request table before the request runs,
+ * so a repeat that lands on another node finds it taken and waits for the response there; the response
+ * is stored in the transaction of the change itself, so a change never commits without it. Repeats on
+ * the same node wait on the first one's result directly, and recent responses are kept in a bounded LRU
+ * so replays don't go to the database.
+ *
+ * Requests that fail aren't stored: the key is released and a retry runs again. A key reused with a
+ * different request is refused (422), and a repeat that waits longer than the wait time for the first
+ * one to finish gets a 409.
+ */
+@Service
+public class IdempotentRequests {
+
+    static final int MAX_KEY_LENGTH = 191;
+
+    private final IdempotentRequestRepository requests;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper json;
+    private final long ttlMs;
+    private final long leaseMs;
+    private final long waitMs;
+    private final Map<String, Stored> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentRequests(IdempotentRequestRepository requests, PlatformTransactionManager transactionManager,
+            ObjectMapper json,
+            @Value("${tasktracker.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${tasktracker.idempotency.ttl-ms:86400000}") long ttlMs,
+            @Value("${tasktracker.idempotency.lease-ms:60000}") long leaseMs,
+            @Value("${tasktracker.idempotency.wait-ms:10000}") long waitMs) {
+        this.requests = requests;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.json = json;
+        this.ttlMs = ttlMs;
+        this.leaseMs = leaseMs;
+        this.waitMs = waitMs;
+        this.recent = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * What to answer: the status and JSON body (null for none), and whether it is a stored response
+     */
+    public record Outcome(int status, String body, boolean replayed) {
+    }
+
+    // replayed: read back from the table rather than produced by this call
+    private record Stored(String hash, int status, String body, long expiresAt, boolean replayed) {
+    }
+
+    /**
+     * Runs the action under the key, or answers with the response of the request that already did.
+     * The request (say "POST /tasks" and its body) is hashed to recognise a key used for something else.
+     */
+    public Outcome execute(Long userId, String key, String request, Object body, Supplier<?> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String hash = hash(request, body);
+        String id = userId + ":" + key;
+        Stored done = cached(id);
+        if (done != null) {
+            return replay(done, hash);
+        }
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> first = inFlight.putIfAbsent(id, mine);
+        if (first != null) {
+            // the same request is running here already: its response is ours
+            return replay(await(first), hash);
+        }
+        try {
+            Stored stored = run(userId, key, hash, action);
+            mine.complete(stored);
+            if (stored.status() < 400) {
+                synchronized (recent) {
+                    recent.put(id, stored);
+                }
+            }
+            return stored.replayed() ? replay(stored, hash) : new Outcome(stored.status(), stored.body(), false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    // daily, from NotificationJobs.cleanup
+    public void purgeExpired() {
+        int purged = requests.deleteExpired(System.currentTimeMillis());
+        if (purged > 0) {
+            System.out.println("[IDEMPOTENCY] Purged " + purged + " expired key(s)");
+        }
+    }
+
+    private Stored run(Long userId, String key, String hash, Supplier<?> action) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            long now = System.currentTimeMillis();
+            long lockedUntil = now + leaseMs;
+            long expiresAt = now + ttlMs;
+            if (requests.claim(userId, key, hash, lockedUntil, expiresAt) == 1
+                    || requests.takeOver(userId, key, hash, lockedUntil, expiresAt, now) == 1) {
+                return runClaimed(userId, key, hash, lockedUntil, expiresAt, action);
+            }
+            // taken: by a finished request, or one still running on another node
+            Optional<IdempotentRequest> taken = requests.findByUserIdAndIdempotencyKey(userId, key);
+            if (taken.isPresent() && taken.get().getResponseStatus() != null) {
+                IdempotentRequest stored = taken.get();
+                return new Stored(stored.getRequestHash(), stored.getResponseStatus(), stored.getResponseBody(),
+                        stored.getExpiresAt(), true);
+            }
+            if (now >= deadline) {
+                return inProgress();
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return inProgress();
+            }
+        }
+    }
+
+    private Stored runClaimed(Long userId, String key, String hash, long lockedUntil, long expiresAt,
+            Supplier<?> action) {
+        try {
+            return transaction.execute(status -> {
+                Object result = action.get();
+                String body;
+                try {
+                    body = result == null ? null : json.writeValueAsString(result);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Could not store the response: " + e.getMessage(), e);
+                }
+                if (requests.complete(userId, key, lockedUntil, 200, body) == 0) {
+                    // our lease ran out and another node took the key over; it runs the request instead
+                    throw new IllegalStateException("Idempotency-Key " + key + " was taken over by a retry");
+                }
+                return new Stored(hash, 200, body, expiresAt, false);
+            });
+        } catch (RuntimeException e) {
+            requests.release(userId, key, lockedUntil);
+            throw e;
+        }
+    }
+
+    private Stored cached(String id) {
+        synchronized (recent) {
+            Stored stored = recent.get(id);
+            if (stored != null && stored.expiresAt() < System.currentTimeMillis()) {
+                recent.remove(id);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private Stored await(CompletableFuture<Stored> first) {
+        try {
+            return first.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the same request failed a moment ago
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        }
+    }
+
+    private Outcome replay(Stored stored, String hash) {
+        if (stored.status() >= 400) {
+            return new Outcome(stored.status(), stored.body(), false);
+        }
+        if (!stored.hash().equals(hash)) {
+            return new Outcome(422, error("Idempotency-Key reused",
+                    "This Idempotency-Key was already used for a different request."), false);
+        }
+        return new Outcome(stored.status(), stored.body(), true);
+    }
+
+    private Stored inProgress() {
+        return new Stored(null, 409, error("Request In Progress",
+                "A request with this Idempotency-Key is still running. Try again in a few seconds."), 0, false);
+    }
+
+    private String error(String error, String message) {
+        try {
+            return json.writeValueAsString(Map.of("error", error, "message", message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String hash(String request, Object body) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(request.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            sha256.update(json.writeValueAsBytes(body));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
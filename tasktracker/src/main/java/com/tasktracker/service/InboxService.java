@@ -0,0 +1,75 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.InboxNotification;
+import com.tasktracker.repo.InboxRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The in-app inbox. The notification jobs file an entry next to each mail, under the same idempotency key,
+ * and bump the user's unread counter in the same transaction; reading entries takes it down again by
+ * however many rows actually changed, so the counter stays equal to the unread rows without ever counting
+ * them.
+ */
+@Service
+public class InboxService {
+
+    static final int MAX_PAGE = 100;
+
+    private final InboxRepository inbox;
+
+    public InboxService(InboxRepository inbox) {
+        this.inbox = inbox;
+    }
+
+    /**
+     * Files an entry in the caller's transaction (one is required); false if the key was already filed.
+     */
+    public boolean file(Long userId, String kind, String title, String body, Long taskId, String idempotencyKey) {
+        String shortTitle = title.length() > 255 ? title.substring(0, 254) + "…" : title;
+        if (inbox.file(userId, kind, shortTitle, body, taskId, idempotencyKey, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        inbox.addUnread(userId, 1);
+        return true;
+    }
+
+    // newest first; pass the last id of the previous page as beforeId to get the next one
+    @Transactional(readOnly = true)
+    public List<InboxNotification> page(Long userId, Long beforeId, int size) {
+        return inbox.findByUserIdAndIdLessThanOrderByIdDesc(userId, beforeId == null ? Long.MAX_VALUE : beforeId,
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE))));
+    }
+
+    @Transactional(readOnly = true)
+    public int unreadCount(Long userId) {
+        return inbox.findUnread(userId).orElse(0);
+    }
+
+    // ids of other users' entries are ignored; returns how many became read
+    @Transactional
+    public int markRead(Long userId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return read(userId, inbox.markRead(userId, ids, LocalDateTime.now()));
+    }
+
+    // everything up to the newest entry the user has seen, so entries filed since stay unread
+    @Transactional
+    public int markAllRead(Long userId, long upTo) {
+        return read(userId, inbox.markReadUpTo(userId, upTo, LocalDateTime.now()));
+    }
+
+    private int read(Long userId, int changed) {
+        if (changed > 0) {
+            inbox.removeUnread(userId, changed);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,21 @@
+package com.tasktracker.service;
+
+/**
+ * Leases on scheduled jobs, so that each run happens on one tasktracker instance only. The default
+ * implementation keeps them in the shared database ({@link DatabaseJobLock}); setting
+ * tasktracker.scheduling.lock=local swaps in {@link LocalJobLock}, an in-memory stand-in for a
+ * single instance. Times are epoch millis.
+ */
+public interface JobLock {
+
+    /**
+     * Take the lease on the job until the given time, unless another instance holds one that is still current.
+     */
+    boolean tryAcquire(String job, long until);
+
+    /**
+     * Move this instance's lease to the given time, later to renew it or earlier to release it. False if
+     * the lease ran out and another instance has taken the job over.
+     */
+    boolean extend(String job, long until);
+}
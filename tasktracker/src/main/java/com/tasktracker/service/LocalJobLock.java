@@ -0,0 +1,36 @@
+package com.tasktracker.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//in-memory leases for a single instance (tasktracker.scheduling.lock=local); only keeps a job from
+//overlapping with its own previous run
+@Component
+@ConditionalOnProperty(name = "tasktracker.scheduling.lock", havingValue = "local")
+public class LocalJobLock implements JobLock {
+
+    private final Map<String, Long> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryAcquire(String job, long until) {
+        long now = System.currentTimeMillis();
+        AtomicBoolean acquired = new AtomicBoolean();
+        leases.compute(job, (name, current) -> {
+            if (current != null && current > now) {
+                return current;
+            }
+            acquired.set(true);
+            return until;
+        });
+        return acquired.get();
+    }
+
+    @Override
+    public boolean extend(String job, long until) {
+        return leases.computeIfPresent(job, (name, current) -> until) != null;
+    }
+}
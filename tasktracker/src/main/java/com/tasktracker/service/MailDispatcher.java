@@ -0,0 +1,323 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.MailDeadLetter;
+import com.tasktracker.repo.MailDeadLetterRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends mail in the background. Producers only put the message on a bounded queue and return.
+ * Worker threads take whatever is queued, up to a batch, and hand it to the SMTP server over one
+ * connection, no faster than the configured rate. Messages that fail are retried with exponential
+ * backoff, and stored in mail_dead_letter after the last attempt. Mail from the notification outbox
+ * carries a {@link DeliveryListener} instead, which records the outcome on the outbox row.
+ */
+@Service
+public class MailDispatcher {
+
+    static final String IDEMPOTENCY_HEADER = "X-TaskTracker-Idempotency-Key";
+
+    private final ObjectProvider<JavaMailSender> mailSenderProvider; // resolved on first send, see StartupConfig
+    private final MailDeadLetterRepository deadLetters;
+    private final BlockingQueue<OutgoingMail> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final RateLimiter rateLimiter;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retries;
+    // waiting for their retry; dead-lettered if the application stops first
+    private final Set<OutgoingMail> pendingRetries = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private volatile boolean running = true;
+
+    public MailDispatcher(ObjectProvider<JavaMailSender> mailSenderProvider, MailDeadLetterRepository deadLetters,
+            @Value("${tasktracker.mail.queue-capacity:10000}") int queueCapacity,
+            @Value("${tasktracker.mail.workers:2}") int workerCount,
+            @Value("${tasktracker.mail.batch-size:50}") int batchSize,
+            @Value("${tasktracker.mail.rate-per-second:10}") double ratePerSecond,
+            @Value("${tasktracker.mail.max-attempts:5}") int maxAttempts,
+            @Value("${tasktracker.mail.retry-base-ms:2000}") long retryBaseMs) {
+        this.mailSenderProvider = mailSenderProvider;
+        this.deadLetters = deadLetters;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.retries = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "mail-retry"));
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = daemon(this::work, "mail-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Whether a mail server is configured at all; callers fall back to the console when it isn't
+     */
+    public boolean isEnabled() {
+        return mailSenderProvider.getIfAvailable() != null;
+    }
+
+    /**
+     * Queue a plain text mail. Inside a transaction it is queued only once the transaction commits, so
+     * nothing is sent for work that rolled back. False if the queue is full and the mail was dropped.
+     */
+    public boolean send(String to, String subject, String text) {
+        return send(new OutgoingMail(to, subject, text, null, null, 0));
+    }
+
+    /**
+     * Queue a mail whose outcome the caller tracks itself (see OutboxRelay). The idempotency key goes
+     * out as a header so a receiver can recognise a redelivery; the listener hears about success or the
+     * final failure, but nothing if the application stops first.
+     */
+    public boolean send(String to, String subject, String text, String idempotencyKey, DeliveryListener listener) {
+        return send(new OutgoingMail(to, subject, text, idempotencyKey, listener, 0));
+    }
+
+    private boolean send(OutgoingMail mail) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(mail);
+                }
+            });
+            return true;
+        }
+        return offer(mail);
+    }
+
+    /**
+     * Mail waiting for a worker, not counting retries
+     */
+    public int queued() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // workers finish what is already queued, for a bounded time
+        running = false;
+        retries.shutdownNow();
+        for (Thread worker : workers) {
+            worker.join(10_000);
+        }
+        synchronized (pendingRetries) {
+            for (OutgoingMail mail : pendingRetries) {
+                abandon(mail, mail.attempts(), "Application stopped before the retry");
+            }
+        }
+    }
+
+    private boolean offer(OutgoingMail mail) {
+        if (!queue.offer(mail)) {
+            System.out.println("[MAIL] Queue full, dropped mail to " + mail.to() + ": " + mail.subject());
+            return false;
+        }
+        return true;
+    }
+
+    private void work() {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutgoingMail first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                rateLimiter.acquire(batch.size());
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("[MAIL] Worker error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // one send call, so JavaMailSenderImpl delivers the whole batch over a single SMTP connection
+    private void deliver(List<OutgoingMail> batch) {
+        JavaMailSender sender = mailSenderProvider.getIfAvailable();
+        if (sender == null) {
+            batch.forEach(mail -> deadLetter(mail, mail.attempts(), "Mail is not configured"));
+            return;
+        }
+        Map<MimeMessage, OutgoingMail> messages = new IdentityHashMap<>();
+        for (OutgoingMail mail : batch) {
+            try {
+                MimeMessage message = sender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setTo(mail.to());
+                helper.setSubject(mail.subject());
+                helper.setText(mail.text());
+                if (mail.idempotencyKey() != null) {
+                    message.setHeader(IDEMPOTENCY_HEADER, mail.idempotencyKey());
+                }
+                messages.put(message, mail);
+            } catch (MessagingException e) {
+                // a bad address won't get better with retries
+                deadLetter(mail, mail.attempts() + 1, e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        Set<OutgoingMail> failedMail = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            sender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // only the listed messages failed; when none are listed the connection itself failed
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                failedMail.addAll(messages.values());
+                messages.values().forEach(mail -> retryOrDeadLetter(mail, e));
+            } else {
+                failed.forEach((message, error) -> {
+                    OutgoingMail mail = messages.get(message);
+                    if (mail != null) {
+                        failedMail.add(mail);
+                        retryOrDeadLetter(mail, error);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            failedMail.addAll(messages.values());
+            messages.values().forEach(mail -> retryOrDeadLetter(mail, e));
+        }
+        for (OutgoingMail mail : messages.values()) {
+            if (mail.listener() != null && !failedMail.contains(mail)) {
+                report(mail, listener -> listener.delivered(mail.attempts() + 1));
+            }
+        }
+    }
+
+    private void retryOrDeadLetter(OutgoingMail mail, Exception error) {
+        int attempts = mail.attempts() + 1;
+        if (!running) {
+            abandon(mail, attempts, error.getMessage());
+            return;
+        }
+        if (attempts >= maxAttempts) {
+            deadLetter(mail, attempts, error.getMessage());
+            return;
+        }
+        OutgoingMail retry = new OutgoingMail(mail.to(), mail.subject(), mail.text(), mail.idempotencyKey(),
+                mail.listener(), attempts);
+        long delay = retryBaseMs << Math.min(attempts - 1, 10);
+        pendingRetries.add(retry);
+        retries.schedule(() -> {
+            pendingRetries.remove(retry);
+            if (!queue.offer(retry)) {
+                abandon(retry, attempts, "Queue full when retrying");
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // stopping, or no room to retry: outbox mail stays claimed until its lease runs out and another relay sends it again
+    private void abandon(OutgoingMail mail, int attempts, String error) {
+        if (mail.listener() == null) {
+            deadLetter(mail, attempts, error);
+        }
+    }
+
+    private void deadLetter(OutgoingMail mail, int attempts, String error) {
+        System.out.println("[MAIL] Giving up on mail to " + mail.to() + " after " + attempts + " attempt(s): " + error);
+        if (mail.listener() != null) {
+            report(mail, listener -> listener.failed(attempts, error));
+            return;
+        }
+        try {
+            deadLetters.save(new MailDeadLetter(mail.to(), mail.subject(), mail.text(), attempts, error));
+        } catch (RuntimeException e) {
+            System.out.println("[MAIL] Could not store dead letter: " + e.getMessage());
+        }
+    }
+
+    private static void report(OutgoingMail mail, Consumer<DeliveryListener> outcome) {
+        try {
+            outcome.accept(mail.listener());
+        } catch (RuntimeException e) {
+            System.out.println("[MAIL] Could not record delivery of mail to " + mail.to() + ": " + e.getMessage());
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Outcome of a mail queued with {@link #send(String, String, String, String, DeliveryListener)}.
+     * Called on a mail worker thread.
+     */
+    public interface DeliveryListener {
+        void delivered(int attempts);
+
+        void failed(int attempts, String error);
+    }
+
+    private record OutgoingMail(String to, String subject, String text, String idempotencyKey,
+            DeliveryListener listener, int attempts) {
+    }
+
+    // token bucket shared by all workers; a batch larger than the tokens on hand waits for the difference
+    private static final class RateLimiter {
+        private final double perMs;
+        private final double capacity;
+        private double tokens;
+        private long updatedAt = System.currentTimeMillis();
+
+        RateLimiter(double perSecond) {
+            this.perMs = perSecond / 1000.0;
+            this.capacity = Math.max(1, perSecond);
+            this.tokens = capacity;
+        }
+
+        void acquire(int permits) throws InterruptedException {
+            long waitMs;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                tokens = Math.min(capacity, tokens + (now - updatedAt) * perMs);
+                updatedAt = now;
+                // take the permits now and wait off the debt outside the lock
+                tokens -= permits;
+                waitMs = tokens < 0 ? (long) Math.ceil(-tokens / perMs) : 0;
+            }
+            if (waitMs > 0) {
+                Thread.sleep(waitMs);
+            }
+        }
+    }
+}
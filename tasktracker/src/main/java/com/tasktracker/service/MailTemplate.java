@@ -0,0 +1,168 @@
+package com.tasktracker.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mail body template, parsed once into a tree and rendered by walking it. A small Mustache subset:
+ * {@code {{name}}} inserts a value, {@code {{#name}}...{{/name}}} repeats its body for each element of a
+ * list (each a map whose keys shadow the outer ones) or keeps it if the value is true, and
+ * {@code {{^name}}...{{/name}}} keeps its body if the value is missing, false or an empty list. Tags are
+ * taken literally, including the line break after a section tag. HTML templates escape inserted values.
+ */
+final class MailTemplate {
+
+    private sealed interface Node permits Text, Value, Section {}
+    private record Text(String text) implements Node {}
+    private record Value(String name) implements Node {}
+    private record Section(String name, boolean inverted, Node[] body) implements Node {}
+
+    private final Node[] nodes;
+    private final boolean escapeHtml;
+
+    private MailTemplate(Node[] nodes, boolean escapeHtml) {
+        this.nodes = nodes;
+        this.escapeHtml = escapeHtml;
+    }
+
+    /**
+     * Parses the source, named for the error messages; a tag that is not closed, or closed out of order, is an IllegalArgumentException.
+     */
+    static MailTemplate compile(String name, String source, boolean escapeHtml) {
+        int[] position = {0};
+        Node[] nodes = parse(name, source, position, null);
+        return new MailTemplate(nodes, escapeHtml);
+    }
+
+    private static Node[] parse(String name, String source, int[] position, String closing) {
+        List<Node> nodes = new ArrayList<>();
+        int at = position[0];
+        while (at < source.length()) {
+            int open = source.indexOf("{{", at);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException(name + ": unclosed tag at offset " + open);
+            }
+            if (open > at) {
+                nodes.add(new Text(source.substring(at, open)));
+            }
+            String tag = source.substring(open + 2, close).trim();
+            at = close + 2;
+            if (tag.isEmpty()) {
+                throw new IllegalArgumentException(name + ": empty tag at offset " + open);
+            }
+            char kind = tag.charAt(0);
+            if (kind == '/') {
+                if (!tag.substring(1).trim().equals(closing)) {
+                    throw new IllegalArgumentException(name + ": unexpected " + tag + " at offset " + open);
+                }
+                position[0] = at;
+                return nodes.toArray(Node[]::new);
+            }
+            if (kind == '#' || kind == '^') {
+                String section = tag.substring(1).trim();
+                position[0] = at;
+                Node[] body = parse(name, source, position, section);
+                at = position[0];
+                nodes.add(new Section(section, kind == '^', body));
+            } else {
+                nodes.add(new Value(tag));
+            }
+        }
+        if (closing != null) {
+            throw new IllegalArgumentException(name + ": {{#" + closing + "}} is never closed");
+        }
+        if (at < source.length()) {
+            nodes.add(new Text(source.substring(at)));
+        }
+        position[0] = source.length();
+        return nodes.toArray(Node[]::new);
+    }
+
+    /**
+     * Appends the rendered template to out. Values are looked up in the innermost section element first,
+     * then outwards to the model; a missing value renders as nothing.
+     */
+    void render(Map<String, ?> model, StringBuilder out) {
+        List<Map<String, ?>> scopes = new ArrayList<>(4);
+        scopes.add(model);
+        render(nodes, scopes, out);
+    }
+
+    private void render(Node[] body, List<Map<String, ?>> scopes, StringBuilder out) {
+        for (Node node : body) {
+            if (node instanceof Text text) {
+                out.append(text.text());
+            } else if (node instanceof Value value) {
+                append(lookup(scopes, value.name()), out);
+            } else if (node instanceof Section section) {
+                renderSection(section, scopes, out);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void renderSection(Section section, List<Map<String, ?>> scopes, StringBuilder out) {
+        Object value = lookup(scopes, section.name());
+        boolean empty = value == null || Boolean.FALSE.equals(value)
+                || (value instanceof Collection<?> items && items.isEmpty())
+                || (value instanceof Iterable<?> items && !items.iterator().hasNext());
+        if (section.inverted()) {
+            if (empty) {
+                render(section.body(), scopes, out);
+            }
+        } else if (!empty) {
+            if (value instanceof Iterable<?> items) {
+                for (Object item : items) {
+                    scopes.add((Map<String, ?>) item);
+                    render(section.body(), scopes, out);
+                    scopes.remove(scopes.size() - 1);
+                }
+            } else {
+                render(section.body(), scopes, out);
+            }
+        }
+    }
+
+    private static Object lookup(List<Map<String, ?>> scopes, String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Object value = scopes.get(i).get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private void append(Object value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        // numbers straight into the buffer, without a String in between
+        if (value instanceof Integer || value instanceof Long) {
+            out.append(((Number) value).longValue());
+            return;
+        }
+        String text = value.toString();
+        if (!escapeHtml) {
+            out.append(text);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.NextTask;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.Status;
+import com.tasktracker.repo.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The home page's "what's next": a user's open tasks, most urgent priority first and soonest due within
+ * it. The priority column sorts in enum declaration order in MySQL (CRITICAL, HIGH, LOW, MEDIUM), so it
+ * can't be ordered by directly; instead each priority is read in turn, highest first, with a limit of
+ * what's still missing, and the reads stop once the list is full. Within a priority every open status is
+ * read on its own (dated tasks first, undated only if they are still needed), so each read is one index
+ * range cut off at the limit, and the slices are merged here. Tasks without a priority aren't listed.
+ *
+ * The top {@link #MAX_K} of each user are kept in a small LRU cache that TaskService empties for the user
+ * after every committed change to their tasks; the ttl only bounds how stale another instance's changes
+ * can leave it.
+ */
+@Service
+public class NextTasks {
+
+    static final int MAX_K = 20;
+
+    private static final Set<Status> OPEN = EnumSet.of(Status.PENDING, Status.IN_PROGRESS, Status.OVERDUE);
+    private static final Priority[] MOST_URGENT_FIRST = {Priority.CRITICAL, Priority.HIGH, Priority.MEDIUM, Priority.LOW};
+
+    private final TaskRepository taskRepository;
+    private final long ttlMs;
+    private final Map<Long, Entry> entries;
+    // bumped by every eviction, so a list read before a change can't be cached after it
+    private final AtomicLong evictions = new AtomicLong();
+
+    public NextTasks(TaskRepository taskRepository,
+            @Value("${tasktracker.next-tasks.cache-size:10000}") int maxSize,
+            @Value("${tasktracker.next-tasks.ttl-ms:60000}") long ttlMs) {
+        this.taskRepository = taskRepository;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The user's k most urgent open tasks (k between 1 and {@link #MAX_K})
+     */
+    public List<NextTask> top(Long ownerId, int k) {
+        List<NextTask> top = cached(ownerId);
+        return top.subList(0, Math.min(Math.max(1, Math.min(k, MAX_K)), top.size()));
+    }
+
+    /**
+     * Drops the user's list once the current transaction commits (right away outside one)
+     */
+    public void evict(Long ownerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(ownerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(ownerId);
+            }
+        });
+    }
+
+    private List<NextTask> cached(Long ownerId) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(ownerId);
+        }
+        if (entry != null && now - entry.loadedAt() <= ttlMs) {
+            return entry.tasks();
+        }
+        // loaded outside the lock like UserStatusCache; kept only if nothing was evicted meanwhile
+        long seen = evictions.get();
+        List<NextTask> tasks = load(ownerId);
+        synchronized (entries) {
+            if (evictions.get() == seen) {
+                entries.put(ownerId, new Entry(tasks, now));
+            }
+        }
+        return tasks;
+    }
+
+    private List<NextTask> load(Long ownerId) {
+        List<NextTask> top = new ArrayList<>(MAX_K);
+        for (Priority priority : MOST_URGENT_FIRST) {
+            top.addAll(load(ownerId, priority, MAX_K - top.size()));
+            if (top.size() == MAX_K) {
+                break;
+            }
+        }
+        return List.copyOf(top);
+    }
+
+    // at most limit of one priority's open tasks, soonest due first and undated last
+    private List<NextTask> load(Long ownerId, Priority priority, int limit) {
+        List<NextTask> dated = new ArrayList<>();
+        for (Status status : OPEN) {
+            dated.addAll(taskRepository.findNextDated(ownerId, status, priority, PageRequest.of(0, limit)));
+        }
+        dated.sort(Comparator.comparing(NextTask::dueDate).thenComparing(NextTask::id));
+        if (dated.size() >= limit) {
+            return dated.subList(0, limit);
+        }
+        List<NextTask> undated = new ArrayList<>();
+        for (Status status : OPEN) {
+            undated.addAll(taskRepository.findNextUndated(ownerId, status, priority,
+                    PageRequest.of(0, limit - dated.size())));
+        }
+        undated.sort(Comparator.comparing(NextTask::id));
+        dated.addAll(undated.subList(0, Math.min(undated.size(), limit - dated.size())));
+        return dated;
+    }
+
+    private void remove(Long ownerId) {
+        synchronized (entries) {
+            evictions.incrementAndGet();
+            entries.remove(ownerId);
+        }
+    }
+
+    private record Entry(List<NextTask> tasks, long loadedAt) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.tasktracker.service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+// names this instance in lease and claim columns (tasktracker.scheduling.node-id, or pid@host plus a
+// random suffix, so a restarted instance never mistakes the old one's claims for its own)
+final class NodeId {
+
+    private NodeId() {}
+
+    static String resolve(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        return ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // the same after a restart, for what an instance picks up again (its history journal): the configured
+    // node id, or host and port; usable as a directory name
+    static String stable(String configured, int port) {
+        String name = configured != null && !configured.isBlank() ? configured : host() + "-" + port;
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String host() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
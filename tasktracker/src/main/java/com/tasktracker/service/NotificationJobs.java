@@ -0,0 +1,81 @@
+package com.tasktracker.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// The notification crons. They fire on every instance; ScheduledJobRunner lets one of them start the
+// run, and PartitionedJobs spreads the users over the worker threads of every instance. The API starts
+// runs the same way and polls them through status().
+@Component
+public class NotificationJobs {
+
+    static final String DUE_SOON = "notify-due-soon";
+    static final String WEEKLY_SUMMARY = "weekly-summary";
+    static final String OVERDUE = "overdue";
+
+    private final ScheduledJobRunner jobs;
+    private final PartitionedJobs partitions;
+    private final OutboxRelay outboxRelay;
+    private final IdempotentRequests idempotentRequests;
+
+    public NotificationJobs(ScheduledJobRunner jobs, PartitionedJobs partitions, NotificationService notifications,
+            OutboxRelay outboxRelay, IdempotentRequests idempotentRequests) {
+        this.jobs = jobs;
+        this.partitions = partitions;
+        this.outboxRelay = outboxRelay;
+        this.idempotentRequests = idempotentRequests;
+        partitions.register(DUE_SOON, (period, after, last, maxUsers) ->
+                notifications.notifyDueSoon(LocalDateTime.parse(period), after, last, maxUsers));
+        partitions.register(WEEKLY_SUMMARY, (period, after, last, maxUsers) ->
+                notifications.sendWeeklySummary(LocalDate.parse(period), after, last, maxUsers));
+        partitions.register(OVERDUE, (period, after, last, maxUsers) ->
+                notifications.sendOverdueNotifications(LocalDate.parse(period), after, last, maxUsers));
+    }
+
+    // From the API, one run per day, as the mails it queues are keyed by the day and a second run would
+    // queue none: triggering it again returns that run instead of starting another, RUNNING while it
+    // runs and DONE or FAILED once it has finished. Null if there are no users
+    public PartitionedJobs.RunStatus startOverdue() {
+        return start(OVERDUE, LocalDate.now().toString());
+    }
+
+    // the same for this week's summary, which is also the run the Monday cron starts
+    public PartitionedJobs.RunStatus startWeeklySummary() {
+        return start(WEEKLY_SUMMARY, LocalDate.now().with(DayOfWeek.MONDAY).toString());
+    }
+
+    public PartitionedJobs.RunStatus status(String job, String period) {
+        return partitions.status(job, period);
+    }
+
+    private PartitionedJobs.RunStatus start(String job, String period) {
+        return partitions.start(job, period) ? partitions.status(job, period) : null;
+    }
+
+    // Every hour
+    @Scheduled(cron = "0 0 * * * *")
+    public void dueSoonReminders() {
+        String hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).toString();
+        jobs.run(DUE_SOON, () -> partitions.start(DUE_SOON, hour));
+    }
+
+    // Weekly summary (every Monday at 9 AM)
+    @Scheduled(cron = "0 0 9 * * MON")
+    public void weeklySummary() {
+        String week = LocalDate.now().with(DayOfWeek.MONDAY).toString();
+        jobs.run(WEEKLY_SUMMARY, () -> partitions.start(WEEKLY_SUMMARY, week));
+    }
+
+    // Once a day; the outbox relay itself runs on every instance, see OutboxRelay
+    @Scheduled(cron = "0 30 3 * * *")
+    public void cleanup() {
+        jobs.run("outbox-purge", outboxRelay::purgeSent);
+        jobs.run("partition-purge", partitions::purgeFinished);
+        jobs.run("idempotency-purge", idempotentRequests::purgeExpired);
+    }
+}
@@ -1,70 +1,122 @@
 package com.tasktracker.service;
 
 import com.tasktracker.model.*;
+import com.tasktracker.repo.NotificationOutboxRepository;
 import com.tasktracker.repo.TaskRepository;
-import com.tasktracker.repo.AppUserRepository;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
 
 @Service
 public class NotificationService {
 
     private final TaskRepository tasks;
-    private final AppUserRepository users;
-    private final JavaMailSender mailSender; // will be null-bean if not configured
+    private final MailDispatcher mail; // queues and returns, delivery happens in the background
+    private final NotificationOutboxRepository outbox; // delivered by OutboxRelay
+    private final EntityManager entityManager;
+    private final NotificationTemplates templates; // the bodies, under src/main/resources/mail
+    private final InboxService inbox; // every job notification is filed in the app too, mail or not
 
-    public NotificationService(TaskRepository tasks, AppUserRepository users,
-            @Autowired(required = false) JavaMailSender mailSender) {
+    public NotificationService(TaskRepository tasks, MailDispatcher mail, NotificationOutboxRepository outbox,
+            EntityManager entityManager, NotificationTemplates templates, InboxService inbox) {
         this.tasks = tasks;
-        this.users = users;
-        this.mailSender = mailSender;
+        this.mail = mail;
+        this.outbox = outbox;
+        this.entityManager = entityManager;
+        this.templates = templates;
+        this.inbox = inbox;
     }
 
-    // Every hour
-    @Scheduled(cron = "0 0 * * * *")
+    @Transactional
     public void notifyDueSoon() {
-        LocalDate today = LocalDate.now();
+        notifyDueSoon(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS), 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Due-soon reminders for the hour's run, for owners with ids in (afterOwner, lastOwner], stopping
+     * after maxUsers of them. Every hour from NotificationJobs, a range at a time.
+     */
+    @Transactional
+    public PartitionedJobs.Chunk notifyDueSoon(LocalDateTime hour, long afterOwner, long lastOwner, int maxUsers) {
+        LocalDate today = hour.toLocalDate();
         LocalDate tomorrow = today.plusDays(1);
+        LocalDateTime now = LocalDateTime.now();
 
-        // Notify each user separately
-        users.findAll().forEach(u -> {
-            List<Task> dueSoon = tasks.findByOwnerAndDueDateBetween(u, today, tomorrow);
-            dueSoon.removeIf(t -> t.getStatus() == Status.DONE);
-            if (dueSoon.isEmpty())
-                return;
-
-            StringBuilder body = new StringBuilder("Tasks due soon:\n");
-            for (Task t : dueSoon) {
-                body.append("- ").append(t.getTitle()).append(" (").append(t.getDueDate()).append(") [")
-                        .append(t.getPriority()).append("]\n");
-            }
+        // One query for everyone; users without open tasks due soon, or only ones they were already
+        // reminded about, never show up
+        try (Stream<Task> rows = tasks.streamUnremindedTasksDueBetween(today, tomorrow, afterOwner, lastOwner)) {
+            return forEachOwner(rows, maxUsers, (u, dueSoon) -> {
+                List<Map<String, Object>> items = new ArrayList<>(dueSoon.size());
+                for (Task t : dueSoon) {
+                    items.add(model("title", t.getTitle(), "dueDate", t.getDueDate(), "priority", t.getPriority()));
+                }
+                String body = render("due-soon", model("tasks", items));
+                String key = "due-soon:" + u.getId() + ":" + hour;
+                inbox.file(u.getId(), "due-soon", dueSoon.size() + " task(s) due soon", body,
+                        dueSoon.size() == 1 ? dueSoon.get(0).getId() : null, key);
+
+                boolean queued = false;
+                if (u.getEmail() != null && !u.getEmail().isBlank() && mail.isEnabled()) {
+                    queued = enqueue(key, u.getEmail(), "Task reminders", body);
+                } else {
+                    System.out.println("[Notify] (Console) for " + u.getUsername() + ":\n" + body);
+                }
+                // same transaction as the outbox row, so a task is marked exactly when its reminder is queued
+                tasks.markReminded(dueSoon.stream().map(Task::getId).toList(), now);
+                return queued;
+            });
+        }
+    }
 
-            if (u.getEmail() != null && !u.getEmail().isBlank() && mailSender != null) {
-                try {
-                    SimpleMailMessage msg = new SimpleMailMessage();
-                    msg.setTo(u.getEmail());
-                    msg.setSubject("Task reminders");
-                    msg.setText(body.toString());
-                    mailSender.send(msg);
-                } catch (Exception e) {
-                    System.out.println("[Notify] Email failed for " + u.getUsername() + ": " + e.getMessage());
-                    System.out.println(body);
+    // Groups rows ordered by owner into one list per user as they stream past, so only one user's
+    // tasks are in memory at a time; the persistence context is cleared after each user for the same reason.
+    // Stops once maxUsers digests are done and the next user's rows begin, at the last owner's id.
+    // The digest says whether it queued a mail
+    private PartitionedJobs.Chunk forEachOwner(Stream<Task> rows, int maxUsers,
+            BiPredicate<AppUser, List<Task>> digest) {
+        AppUser owner = null;
+        List<Task> owned = new ArrayList<>();
+        int digested = 0;
+        int queued = 0;
+        for (Task t : (Iterable<Task>) rows::iterator) {
+            if (owner != null && !owner.getId().equals(t.getOwner().getId())) {
+                if (digest.test(owner, owned)) {
+                    queued++;
+                }
+                if (++digested == maxUsers) {
+                    return new PartitionedJobs.Chunk(owner.getId(), digested, queued);
                 }
-            } else {
-                System.out.println("[Notify] (Console) for " + u.getUsername() + ":\n" + body);
+                owned = new ArrayList<>();
+                entityManager.clear();
             }
-        });
+            owner = t.getOwner();
+            owned.add(t);
+        }
+        if (owner != null) {
+            digested++;
+            if (digest.test(owner, owned)) {
+                queued++;
+            }
+        }
+        return new PartitionedJobs.Chunk(null, digested, queued);
     }
 
     // Manual notification trigger for testing
     public void sendTestNotification(AppUser user) {
-        if (mailSender == null) {
+        if (!mail.isEnabled()) {
             System.out.println("[TEST] Email service not configured");
             return;
         }
@@ -74,119 +126,134 @@ public class NotificationService {
             return;
         }
 
-        try {
-            SimpleMailMessage msg = new SimpleMailMessage();
-            msg.setTo(user.getEmail());
-            msg.setSubject("TaskTracker - Test Notification");
-            msg.setText("Hello " + user.getUsername() + "!\n\n" +
-                       "This is a test notification from your TaskTracker application.\n" +
-                       "Email notifications are now working!\n\n" +
-                       "You will receive notifications for:\n" +
-                       "- Tasks due today or tomorrow\n" +
-                       "- Overdue tasks\n" +
-                       "- Weekly task summaries\n\n" +
-                       "Happy task tracking!\n" +
-                       "- TaskTracker Team");
-            mailSender.send(msg);
-            System.out.println("[TEST] Email sent successfully to " + user.getEmail());
-        } catch (Exception e) {
-            System.out.println("[TEST] Email failed: " + e.getMessage());
+        if (mail.send(user.getEmail(), "TaskTracker - Test Notification",
+                       render("test", model("username", user.getUsername())))) {
+            System.out.println("[TEST] Email queued for " + user.getEmail());
         }
     }
 
     // Send overdue task notifications  
+    @Transactional
     public void sendOverdueNotifications() {
-        LocalDate today = LocalDate.now();
-        
-        users.findAll().forEach(u -> {
-            List<Task> overdueTasks = tasks.findByOwner(u).stream()
-                .filter(t -> t.getDueDate() != null && t.getDueDate().isBefore(today) && t.getStatus() != Status.DONE)
-                .toList();
-                
-            if (overdueTasks.isEmpty()) return;
-
-            StringBuilder body = new StringBuilder("⚠️ OVERDUE TASKS ALERT!\n\n");
-            body.append("You have ").append(overdueTasks.size()).append(" overdue task(s):\n\n");
-            
-            for (Task t : overdueTasks) {
-                long daysOverdue = java.time.temporal.ChronoUnit.DAYS.between(t.getDueDate(), today);
-                body.append("📝 ").append(t.getTitle())
-                    .append("\n   Due: ").append(t.getDueDate())
-                    .append(" (").append(daysOverdue).append(" days overdue)")
-                    .append("\n   Priority: ").append(t.getPriority())
-                    .append("\n\n");
-            }
-            
-            body.append("Please complete these tasks as soon as possible!\n");
-            body.append("\nLogin to TaskTracker: http://localhost:8080\n");
-
-            if (u.getEmail() != null && !u.getEmail().isBlank() && mailSender != null) {
-                try {
-                    SimpleMailMessage msg = new SimpleMailMessage();
-                    msg.setTo(u.getEmail());
-                    msg.setSubject("TaskTracker - Overdue Tasks Alert ⚠️");
-                    msg.setText(body.toString());
-                    mailSender.send(msg);
-                    System.out.println("[OVERDUE] Email sent to " + u.getUsername());
-                } catch (Exception e) {
-                    System.out.println("[OVERDUE] Email failed for " + u.getUsername() + ": " + e.getMessage());
+        sendOverdueNotifications(LocalDate.now(), 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Overdue alerts for the day's run, for owners with ids in (afterOwner, lastOwner], at most maxUsers
+     * of them. Started from the API through NotificationJobs, a range at a time.
+     */
+    @Transactional
+    public PartitionedJobs.Chunk sendOverdueNotifications(LocalDate today, long afterOwner, long lastOwner,
+            int maxUsers) {
+        try (Stream<Task> rows = tasks.streamOpenTasksDueBefore(today, afterOwner, lastOwner)) {
+            return forEachOwner(rows, maxUsers, (u, overdueTasks) -> {
+                List<Map<String, Object>> items = new ArrayList<>(overdueTasks.size());
+                for (Task t : overdueTasks) {
+                    items.add(model("title", t.getTitle(), "dueDate", t.getDueDate(),
+                            "daysOverdue", ChronoUnit.DAYS.between(t.getDueDate(), today), "priority", t.getPriority()));
                 }
-            }
-        });
+                String body = render("overdue", model("count", overdueTasks.size(), "tasks", items));
+                String key = "overdue:" + u.getId() + ":" + today;
+                inbox.file(u.getId(), "overdue", overdueTasks.size() + " overdue task(s)", body,
+                        overdueTasks.size() == 1 ? overdueTasks.get(0).getId() : null, key);
+
+                if (u.getEmail() != null && !u.getEmail().isBlank() && mail.isEnabled()
+                        && enqueue(key, u.getEmail(), "TaskTracker - Overdue Tasks Alert ⚠️", body)) {
+                    System.out.println("[OVERDUE] Email queued for " + u.getUsername());
+                    return true;
+                }
+                return false;
+            });
+        }
     }
 
-    // Weekly summary (every Monday at 9 AM)
-    @Scheduled(cron = "0 0 9 * * MON")
+    @Transactional
     public void sendWeeklySummary() {
-        users.findAll().forEach(u -> {
-            List<Task> allTasks = tasks.findByOwner(u);
-            long totalTasks = allTasks.size();
-            long completedTasks = allTasks.stream().filter(t -> t.getStatus() == Status.DONE).count();
-            long pendingTasks = totalTasks - completedTasks;
-            
-            if (totalTasks == 0) return;
-
-            StringBuilder body = new StringBuilder("📊 WEEKLY TASK SUMMARY\n\n");
-            body.append("Hello ").append(u.getUsername()).append("!\n\n");
-            body.append("Here's your weekly task summary:\n\n");
-            body.append("📈 Total Tasks: ").append(totalTasks).append("\n");
-            body.append("✅ Completed: ").append(completedTasks).append("\n");
-            body.append("⏳ Pending: ").append(pendingTasks).append("\n");
-            
-            if (totalTasks > 0) {
-                int completionRate = (int) ((completedTasks * 100) / totalTasks);
-                body.append("📊 Completion Rate: ").append(completionRate).append("%\n\n");
-                
-                if (completionRate >= 80) {
-                    body.append("🎉 Excellent work! You're very productive!\n");
-                } else if (completionRate >= 60) {
-                    body.append("👍 Good progress! Keep it up!\n");
-                } else {
-                    body.append("💪 Let's focus on completing more tasks this week!\n");
+        sendWeeklySummary(LocalDate.now().with(DayOfWeek.MONDAY), 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Weekly summaries for owners with ids in (afterOwner, lastOwner], at most maxUsers of them. Every
+     * Monday at 9 AM from NotificationJobs, a range at a time.
+     */
+    @Transactional
+    public PartitionedJobs.Chunk sendWeeklySummary(LocalDate week, long afterOwner, long lastOwner, int maxUsers) {
+        int summarized = 0;
+        int queued = 0;
+        Long lastSummarized = null;
+        // counts come from one grouped query instead of loading every user's tasks
+        try (Stream<Object[]> totals = tasks.streamTaskTotalsByOwner(afterOwner, lastOwner)) {
+            for (Object[] row : (Iterable<Object[]>) totals::iterator) {
+                AppUser u = (AppUser) row[0];
+                if (summarized == maxUsers) {
+                    return new PartitionedJobs.Chunk(lastSummarized, summarized, queued);
                 }
-            }
-            
-            body.append("\nStay productive!\n");
-            body.append("Login to TaskTracker: http://localhost:8080\n");
-
-            if (u.getEmail() != null && !u.getEmail().isBlank() && mailSender != null) {
-                try {
-                    SimpleMailMessage msg = new SimpleMailMessage();
-                    msg.setTo(u.getEmail());
-                    msg.setSubject("TaskTracker - Weekly Summary 📊");
-                    msg.setText(body.toString());
-                    mailSender.send(msg);
-                    System.out.println("[WEEKLY] Summary sent to " + u.getUsername());
-                } catch (Exception e) {
-                    System.out.println("[WEEKLY] Email failed for " + u.getUsername() + ": " + e.getMessage());
+                summarized++;
+                lastSummarized = u.getId();
+                long totalTasks = ((Number) row[1]).longValue();
+                long completedTasks = ((Number) row[2]).longValue();
+                long pendingTasks = totalTasks - completedTasks;
+                
+                if (totalTasks == 0) continue;
+
+                int completionRate = (int) ((completedTasks * 100) / totalTasks);
+                String body = render("weekly-summary", model("username", u.getUsername(), "total", totalTasks,
+                        "completed", completedTasks, "pending", pendingTasks, "completionRate", completionRate,
+                        "excellent", completionRate >= 80, "good", completionRate >= 60 && completionRate < 80,
+                        "behind", completionRate < 60));
+                String key = "weekly:" + u.getId() + ":" + week;
+                inbox.file(u.getId(), "weekly-summary", "Weekly summary: " + completionRate + "% done", body, null, key);
+
+                if (u.getEmail() != null && !u.getEmail().isBlank() && mail.isEnabled()
+                        && enqueue(key, u.getEmail(), "TaskTracker - Weekly Summary 📊", body)) {
+                    System.out.println("[WEEKLY] Summary queued for " + u.getUsername());
+                    queued++;
                 }
+                entityManager.detach(u);
             }
-        });
+        }
+        return new PartitionedJobs.Chunk(null, summarized, queued);
     }
     
+    // One task reminder from ReminderScheduler, in the transaction that marked it fired
+    public void sendTaskReminder(TaskReminder reminder) {
+        Task t = reminder.getTask();
+        AppUser u = t.getOwner();
+
+        String body = render("task-reminder", model("title", t.getTitle(), "dueDate", t.getDueDate(),
+                "priority", t.getPriority(), "offset", describeOffset(reminder.getOffsetMinutes())));
+        String key = "reminder:" + reminder.getId();
+        inbox.file(u.getId(), "reminder", "Reminder: " + t.getTitle(), body, t.getId(), key);
+
+        if (u.getEmail() != null && !u.getEmail().isBlank() && mail.isEnabled()) {
+            if (enqueue(key, u.getEmail(), "TaskTracker - Reminder: " + t.getTitle(), body)) {
+                System.out.println("[REMINDER] Email queued for " + u.getUsername());
+            }
+        } else {
+            System.out.println("[REMINDER] (Console) for " + u.getUsername() + ":\n" + body);
+        }
+    }
+
+    private static String describeOffset(int minutes) {
+        if (minutes % (60 * 24 * 7) == 0) {
+            return plural(minutes / (60 * 24 * 7), "week");
+        }
+        if (minutes % (60 * 24) == 0) {
+            return plural(minutes / (60 * 24), "day");
+        }
+        if (minutes % 60 == 0) {
+            return plural(minutes / 60, "hour");
+        }
+        return plural(minutes, "minute");
+    }
+
+    private static String plural(int amount, String unit) {
+        return amount + " " + unit + (amount == 1 ? "" : "s");
+    }
+
     // Send welcome email to new users
     public void sendWelcomeEmail(AppUser user) {
-        if (mailSender == null) {
+        if (!mail.isEnabled()) {
             System.out.println("[WELCOME] Email service not configured");
             return;
         }
@@ -196,38 +263,32 @@ public class NotificationService {
             return;
         }
 
-        try {
-            SimpleMailMessage msg = new SimpleMailMessage();
-            msg.setTo(user.getEmail());
-            msg.setSubject("Welcome to TaskTracker! 🎉");
-            
-            StringBuilder body = new StringBuilder();
-            body.append("Hello ").append(user.getUsername()).append("!\n\n");
-            body.append("🎉 Welcome to TaskTracker - Your Personal Task Management Hub!\n\n");
-            body.append("We're excited to have you on board! TaskTracker will help you:\n");
-            body.append("✅ Organize your tasks efficiently\n");
-            body.append("📅 Set priorities and due dates\n");
-            body.append("📂 Categorize your work\n");
-            body.append("📧 Receive helpful notifications\n");
-            body.append("📊 Track your productivity\n\n");
-            body.append("🚀 Getting Started:\n");
-            body.append("1. Login to your dashboard: http://localhost:8080\n");
-            body.append("2. Create your first task\n");
-            body.append("3. Set up categories for better organization\n");
-            body.append("4. Enable email notifications for reminders\n\n");
-            body.append("💡 Pro Tips:\n");
-            body.append("• Use priority levels to focus on what matters most\n");
-            body.append("• Set realistic due dates to stay on track\n");
-            body.append("• Check your weekly summaries to improve productivity\n\n");
-            body.append("If you have any questions or need help, don't hesitate to reach out!\n\n");
-            body.append("Happy task tracking! 📝\n");
-            body.append("- The TaskTracker Team");
-            
-            msg.setText(body.toString());
-            mailSender.send(msg);
-            System.out.println("[WELCOME] Email sent successfully to " + user.getEmail());
-        } catch (Exception e) {
-            System.out.println("[WELCOME] Email failed: " + e.getMessage());
+        // written in registerUser's transaction: the account and its welcome mail commit together
+        if (enqueue("welcome:" + user.getId(), user.getEmail(), "Welcome to TaskTracker! 🎉",
+                render("welcome", model("username", user.getUsername())))) {
+            System.out.println("[WELCOME] Email queued for " + user.getEmail());
         }
     }
+
+    // Users have no language setting yet, so every body comes from the default template
+    private String render(String template, Map<String, ?> model) {
+        return templates.text(template, Locale.ROOT, model);
+    }
+
+    // name, value, name, value...; a null value is left out and renders as nothing
+    private static Map<String, Object> model(Object... namesAndValues) {
+        Map<String, Object> model = new HashMap<>(namesAndValues.length);
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i + 1] != null) {
+                model.put((String) namesAndValues[i], namesAndValues[i + 1]);
+            }
+        }
+        return model;
+    }
+
+    // Adds the mail to the outbox in the caller's transaction. The key names the notification (what,
+    // for whom, for which period), so a job that runs twice queues it once; false if it already was
+    private boolean enqueue(String idempotencyKey, String to, String subject, String body) {
+        return outbox.enqueue(idempotencyKey, to, subject, body, LocalDateTime.now()) > 0;
+    }
 }
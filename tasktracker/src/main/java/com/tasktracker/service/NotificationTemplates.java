@@ -0,0 +1,120 @@
+package com.tasktracker.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The mail body templates, read from tasktracker.mail.templates (classpath:mail/ by default) and compiled
+ * once at startup, so a broken template stops the application instead of a notification run. A template
+ * is name.txt for the plain text body and optionally name.html for an HTML one; name_de.txt,
+ * name_de_CH.txt and so on are picked for a matching locale before falling back to name.txt. Rendering
+ * goes into a per-thread buffer that is reused from one message to the next.
+ */
+@Component
+public class NotificationTemplates {
+
+    // a buffer that grew past this for one large message is dropped rather than kept around
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    // by name with its locale suffix, as in the file names
+    private record Variants(MailTemplate text, MailTemplate html) {}
+
+    private final Map<String, Variants> templates;
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    @Autowired
+    public NotificationTemplates(@Value("${tasktracker.mail.templates:classpath:mail/}") String location) {
+        this(load(location));
+    }
+
+    // name.txt / name.html -> source, for tests
+    NotificationTemplates(Map<String, String> sources) {
+        Map<String, Variants> compiled = new HashMap<>();
+        sources.forEach((file, source) -> {
+            boolean html = file.endsWith(".html");
+            String name = file.substring(0, file.lastIndexOf('.'));
+            MailTemplate template = MailTemplate.compile(file, source, html);
+            compiled.merge(name, html ? new Variants(null, template) : new Variants(template, null),
+                    (a, b) -> new Variants(a.text() != null ? a.text() : b.text(), a.html() != null ? a.html() : b.html()));
+        });
+        compiled.forEach((name, variants) -> {
+            if (variants.text() == null) {
+                throw new IllegalStateException("Mail template " + name + ".html has no " + name + ".txt");
+            }
+        });
+        this.templates = Map.copyOf(compiled);
+    }
+
+    private static Map<String, String> load(String location) {
+        String base = location.endsWith("/") ? location : location + "/";
+        Map<String, String> sources = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(base + "*.*")) {
+                String file = resource.getFilename();
+                if (file != null && (file.endsWith(".txt") || file.endsWith(".html"))) {
+                    sources.put(file, resource.getContentAsString(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read mail templates from " + location, e);
+        }
+        return sources;
+    }
+
+    /**
+     * The plain text body; an IllegalArgumentException if there is no such template.
+     */
+    public String text(String name, Locale locale, Map<String, ?> model) {
+        Variants variants = find(name, locale);
+        if (variants == null) {
+            throw new IllegalArgumentException("No mail template " + name + ".txt");
+        }
+        return render(variants.text(), model);
+    }
+
+    /**
+     * The HTML body, or null if the template has no HTML variant.
+     */
+    public String html(String name, Locale locale, Map<String, ?> model) {
+        Variants variants = find(name, locale);
+        return variants == null || variants.html() == null ? null : render(variants.html(), model);
+    }
+
+    // the most specific variant there is; Locale.ROOT (or null) goes straight to the base name
+    private Variants find(String name, Locale locale) {
+        if (locale != null && !locale.getLanguage().isEmpty()) {
+            if (!locale.getCountry().isEmpty()) {
+                Variants regional = templates.get(name + "_" + locale.getLanguage() + "_" + locale.getCountry());
+                if (regional != null) {
+                    return regional;
+                }
+            }
+            Variants language = templates.get(name + "_" + locale.getLanguage());
+            if (language != null) {
+                return language;
+            }
+        }
+        return templates.get(name);
+    }
+
+    private String render(MailTemplate template, Map<String, ?> model) {
+        StringBuilder out = buffers.get();
+        out.setLength(0);
+        template.render(model, out);
+        String body = out.toString();
+        if (out.capacity() > MAX_POOLED_CAPACITY) {
+            buffers.remove();
+        }
+        return body;
+    }
+}
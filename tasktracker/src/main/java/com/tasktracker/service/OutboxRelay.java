@@ -0,0 +1,103 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.OutboxMessage;
+import com.tasktracker.repo.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves notification_outbox rows to the MailDispatcher. Each poll claims a batch in a short transaction
+ * (select ... for update skip locked, then a lease in claimed_until), so relays on several instances
+ * split the pending rows between them without talking to each other. A row is marked sent only after
+ * the SMTP server accepted it; if this instance dies first, the lease lapses and another relay sends it
+ * again, so delivery is at least once and the idempotency key travels with the mail.
+ */
+@Service
+public class OutboxRelay {
+
+    private final NotificationOutboxRepository outbox;
+    private final MailDispatcher mail;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final long leaseMs;
+    private final int retentionDays;
+
+    public OutboxRelay(NotificationOutboxRepository outbox, MailDispatcher mail,
+            PlatformTransactionManager transactionManager,
+            @Value("${tasktracker.outbox.batch-size:100}") int batchSize,
+            @Value("${tasktracker.outbox.lease-ms:300000}") long leaseMs,
+            @Value("${tasktracker.outbox.retention-days:7}") int retentionDays) {
+        this.outbox = outbox;
+        this.mail = mail;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.leaseMs = leaseMs;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${tasktracker.outbox.poll-ms:2000}")
+    public void relay() {
+        // rows wait in the table while mail is off, and while the dispatcher still has a batch to work
+        // through, so nothing sits in memory long enough for its lease to run out
+        if (!mail.isEnabled() || mail.queued() >= batchSize) {
+            return;
+        }
+        try {
+            for (OutboxMessage message : claimBatch()) {
+                hand(message);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[OUTBOX] Relay failed: " + e.getMessage());
+        }
+    }
+
+    // sent rows older than the retention period, once a day from NotificationJobs; failed rows stay for inspection
+    public void purgeSent() {
+        int purged = outbox.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            System.out.println("[OUTBOX] Purged " + purged + " sent notification(s)");
+        }
+    }
+
+    List<OutboxMessage> claimBatch() {
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> batch = outbox.findClaimable(now, PageRequest.of(0, batchSize));
+            if (!batch.isEmpty()) {
+                outbox.claim(batch.stream().map(OutboxMessage::getId).toList(), now.plus(Duration.ofMillis(leaseMs)));
+            }
+            return batch;
+        });
+    }
+
+    private void hand(OutboxMessage message) {
+        Long id = message.getId();
+        boolean queued = mail.send(message.getRecipient(), message.getSubject(), message.getBody(),
+                message.getIdempotencyKey(), new MailDispatcher.DeliveryListener() {
+                    @Override
+                    public void delivered(int attempts) {
+                        outbox.markSent(id, attempts, LocalDateTime.now());
+                    }
+
+                    @Override
+                    public void failed(int attempts, String error) {
+                        outbox.markFailed(id, attempts, truncate(error));
+                    }
+                });
+        if (!queued) {
+            outbox.release(id);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
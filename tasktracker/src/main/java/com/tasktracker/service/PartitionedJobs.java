@@ -0,0 +1,289 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.JobPartition;
+import com.tasktracker.model.PartitionStatus;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.JobPartitionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a job over the user id space in parallel. {@link #start} splits the current id range into
+ * partitions stored in job_partition; worker threads on every instance claim pending partitions (skip
+ * locked, then a lease) and work through each one a chunk of users at a time, saving a checkpoint after
+ * every chunk. A partition whose worker died is claimed again once the lease runs out and continues from
+ * its checkpoint; the outbox idempotency keys absorb the chunk that gets redone. Each partition is timed
+ * under tasktracker.jobs.partition (tags job, outcome) and tasktracker.jobs.progress is the share of the
+ * latest run's partitions that are done. Partitions also count the users and mails of their chunks, which
+ * {@link #status} adds up per run.
+ */
+@Service
+public class PartitionedJobs {
+
+    /**
+     * One chunk of a partition: handle at most maxUsers owners with ids in (afterOwner, lastOwner] for the
+     * given run, and say how far it got.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        Chunk process(String period, long afterOwner, long lastOwner, int maxUsers);
+    }
+
+    /**
+     * What a chunk did: the last owner handled if it stopped early (null once the range is done), how many
+     * users it went through and how many mails it queued.
+     */
+    public record Chunk(Long stoppedAt, int users, int mails) {}
+
+    /**
+     * A run as the status endpoint shows it. State is RUNNING until every partition is done or given up,
+     * then DONE, or FAILED if any was given up; times are epoch millis.
+     */
+    public record RunStatus(String job, String period, String state, long partitions, long partitionsDone,
+            long partitionsFailed, long usersProcessed, long mailsQueued, long failures, long startedAt,
+            Long finishedAt) {}
+
+    private final JobPartitionRepository partitions;
+    private final AppUserRepository users;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meters;
+    private final String owner;
+    private final int partitionCount;
+    private final int chunkUsers;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final int retentionDays;
+    private final int workerCount;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<String, RangeTask> tasks = new ConcurrentHashMap<>();
+    private final Map<String, AtomicReference<Double>> progress = new ConcurrentHashMap<>();
+
+    public PartitionedJobs(JobPartitionRepository partitions, AppUserRepository users,
+            PlatformTransactionManager transactionManager, MeterRegistry meters,
+            @Value("${tasktracker.scheduling.node-id:}") String nodeId,
+            @Value("${tasktracker.jobs.partitions:16}") int partitionCount,
+            @Value("${tasktracker.jobs.workers:4}") int workerCount,
+            @Value("${tasktracker.jobs.chunk-users:200}") int chunkUsers,
+            @Value("${tasktracker.jobs.partition-lease-ms:300000}") long leaseMs,
+            @Value("${tasktracker.jobs.max-attempts:3}") int maxAttempts,
+            @Value("${tasktracker.jobs.retention-days:7}") int retentionDays) {
+        this.partitions = partitions;
+        this.users = users;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meters = meters;
+        this.owner = NodeId.resolve(nodeId);
+        this.partitionCount = partitionCount;
+        this.chunkUsers = chunkUsers;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.retentionDays = retentionDays;
+        this.workerCount = workerCount;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "job-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    public void register(String job, RangeTask task) {
+        tasks.put(job, task);
+    }
+
+    /**
+     * Split the run for this period into partitions and put this instance's workers on them. A run that
+     * already exists (another instance started it, or this is a retry) is left as it is. False if there
+     * was nothing to start.
+     */
+    public boolean start(String job, String period) {
+        if (!partitions.existsByJobAndPeriod(job, period)) {
+            Object[] bounds = users.findIdBounds().get(0);
+            if (bounds[0] == null) {
+                return false;
+            }
+            try {
+                partitions.saveAll(split(job, period, ((Number) bounds[0]).longValue(), ((Number) bounds[1]).longValue()));
+            } catch (DataIntegrityViolationException e) {
+                // started at the same moment on another instance; its partitions are just as good
+            }
+            progress(job).set(0.0);
+        }
+        wake();
+        return true;
+    }
+
+    /**
+     * Progress of the run for this period, added up over its partitions; null if there is no such run.
+     */
+    public RunStatus status(String job, String period) {
+        Object[] totals = partitions.summarize(job, period).get(0);
+        long count = ((Number) totals[0]).longValue();
+        if (count == 0) {
+            return null;
+        }
+        long done = ((Number) totals[1]).longValue();
+        long failed = ((Number) totals[2]).longValue();
+        boolean finished = done + failed == count;
+        return new RunStatus(job, period, !finished ? "RUNNING" : failed > 0 ? "FAILED" : "DONE", count, done,
+                failed, ((Number) totals[3]).longValue(), ((Number) totals[4]).longValue(),
+                ((Number) totals[5]).longValue(), ((Number) totals[6]).longValue(),
+                finished ? (Long) totals[7] : null);
+    }
+
+    // equal slices of [min, max]; the last one is open-ended so users registered since are included
+    List<JobPartition> split(String job, String period, long min, long max) {
+        int count = (int) Math.max(1, Math.min(partitionCount, max - min + 1));
+        long size = (max - min + count) / count;
+        List<JobPartition> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long after = min - 1 + i * size;
+            long last = i == count - 1 ? Long.MAX_VALUE : after + size;
+            ranges.add(new JobPartition(job, period, i, after, last));
+        }
+        return ranges;
+    }
+
+    // picks up partitions from runs started elsewhere, and ranges whose worker died
+    @Scheduled(fixedDelayString = "${tasktracker.jobs.partition-poll-ms:10000}")
+    public void poll() {
+        wake();
+    }
+
+    // finished and abandoned runs older than the retention period, once a day from NotificationJobs
+    public void purgeFinished() {
+        partitions.deleteCreatedBefore(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // an interrupted partition keeps its checkpoint and is claimed again after the lease
+        workers.shutdownNow();
+    }
+
+    private void wake() {
+        int running;
+        while ((running = active.get()) < workerCount) {
+            if (active.compareAndSet(running, running + 1)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    active.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            JobPartition partition;
+            while ((partition = claim()) != null) {
+                process(partition);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[JOBS] Partition worker failed: " + e.getMessage());
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    JobPartition claim() {
+        return transaction.execute(status -> {
+            long now = System.currentTimeMillis();
+            for (JobPartition partition : partitions.findClaimable(now, PageRequest.of(0, 5))) {
+                if (partition.getAttempts() >= maxAttempts) {
+                    System.out.println("[JOBS] Giving up on " + describe(partition) + " after "
+                            + partition.getAttempts() + " attempt(s)");
+                    partitions.giveUp(partition.getId(), now);
+                    continue;
+                }
+                partitions.claim(partition.getId(), owner, now + leaseMs);
+                return partition;
+            }
+            return null;
+        });
+    }
+
+    private void process(JobPartition partition) {
+        long startedAt = System.currentTimeMillis();
+        String outcome = "failure";
+        try {
+            RangeTask task = tasks.get(partition.getJob());
+            if (task == null) {
+                throw new IllegalStateException("No task registered for " + partition.getJob());
+            }
+            long checkpoint = partition.getCheckpoint();
+            Chunk chunk;
+            while ((chunk = task.process(partition.getPeriod(), checkpoint, partition.getLastOwner(), chunkUsers))
+                    .stoppedAt() != null) {
+                checkpoint = chunk.stoppedAt();
+                if (partitions.checkpoint(partition.getId(), owner, checkpoint, System.currentTimeMillis() + leaseMs,
+                        chunk.users(), chunk.mails()) == 0) {
+                    // the lease ran out and another worker continues from an earlier checkpoint
+                    System.out.println("[JOBS] Lost " + describe(partition) + " to another worker");
+                    outcome = "lost";
+                    return;
+                }
+            }
+            if (partitions.finish(partition.getId(), owner, PartitionStatus.DONE, System.currentTimeMillis(),
+                    chunk.users(), chunk.mails()) == 0) {
+                // the new owner counts the range, and the progress, when it finishes
+                System.out.println("[JOBS] Lost " + describe(partition) + " to another worker before finishing it");
+                outcome = "lost";
+                return;
+            }
+            outcome = "success";
+            updateProgress(partition);
+        } catch (RuntimeException e) {
+            System.out.println("[JOBS] " + describe(partition) + " failed: " + e.getMessage());
+            partitions.release(partition.getId(), owner);
+        } finally {
+            Timer.builder("tasktracker.jobs.partition").tag("job", partition.getJob()).tag("outcome", outcome)
+                    .description("Time to work through one partition of a job run").register(meters)
+                    .record(System.currentTimeMillis() - startedAt, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void updateProgress(JobPartition partition) {
+        long total = partitions.countByJobAndPeriod(partition.getJob(), partition.getPeriod());
+        long done = partitions.countByJobAndPeriodAndStatus(partition.getJob(), partition.getPeriod(),
+                PartitionStatus.DONE);
+        progress(partition.getJob()).set(total == 0 ? 1.0 : (double) done / total);
+    }
+
+    private AtomicReference<Double> progress(String job) {
+        return progress.computeIfAbsent(job, name -> {
+            AtomicReference<Double> share = new AtomicReference<>(0.0);
+            Gauge.builder("tasktracker.jobs.progress", share, AtomicReference::get).tag("job", name)
+                    .description("Share of the latest run's partitions that are done").register(meters);
+            return share;
+        });
+    }
+
+    private static String describe(JobPartition partition) {
+        return partition.getJob() + " " + partition.getPeriod() + " partition " + partition.getPartitionNo();
+    }
+}
@@ -0,0 +1,217 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.Status;
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskReminder;
+import com.tasktracker.repo.TaskReminderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fires task reminders to the minute. Reminders due within the horizon (an hour by default) wait in a
+ * {@link TimingWheel}; later ones stay in task_reminder until the loader reaches their slice, which it
+ * reads with an index range on fire_at every few minutes. TaskService keeps the wheel current as tasks
+ * are created, changed and deleted. Every instance runs its own wheel, and markFired decides which of
+ * them sends a reminder, through the notification outbox.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Pattern OFFSET = Pattern.compile("(\\d{1,5})\\s*([mhdw]?)");
+    private static final int MAX_OFFSET_MINUTES = 60 * 24 * 28;
+
+    private final TaskReminderRepository reminders;
+    private final NotificationService notifications;
+    private final TransactionTemplate transaction;
+    private final LocalTime dueTime;
+    private final long horizonMs;
+    private final long catchUpMs;
+    private final TimingWheel<Long> wheel;
+    private final Map<Long, TimingWheel<Long>.Timeout> scheduled = new ConcurrentHashMap<>();
+    private volatile long loadedUntil;
+
+    public ReminderScheduler(TaskReminderRepository reminders, NotificationService notifications,
+            PlatformTransactionManager transactionManager,
+            @Value("${tasktracker.reminders.due-time:09:00}") LocalTime dueTime,
+            @Value("${tasktracker.reminders.horizon-ms:3600000}") long horizonMs,
+            @Value("${tasktracker.reminders.catch-up-ms:3600000}") long catchUpMs) {
+        this.reminders = reminders;
+        this.notifications = notifications;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dueTime = dueTime;
+        this.horizonMs = horizonMs;
+        this.catchUpMs = catchUpMs;
+        // one-minute ticks; a second level of hours covers anything the horizon can hold
+        this.wheel = new TimingWheel<>(60_000, 60, System.currentTimeMillis());
+    }
+
+    /**
+     * Reminder offsets like "30m", "2h", "1d" or "1w" (a bare number is minutes), as minutes before the due time
+     */
+    public static List<Integer> parseOffsets(List<String> offsets) {
+        List<Integer> minutes = new ArrayList<>();
+        for (String offset : offsets) {
+            Matcher m = offset == null ? null : OFFSET.matcher(offset.trim().toLowerCase());
+            if (m == null || !m.matches()) {
+                throw new IllegalArgumentException("Invalid reminder \"" + offset + "\". Use e.g. 30m, 2h, 1d or 1w.");
+            }
+            int amount = Integer.parseInt(m.group(1));
+            int value = switch (m.group(2)) {
+                case "h" -> amount * 60;
+                case "d" -> amount * 60 * 24;
+                case "w" -> amount * 60 * 24 * 7;
+                default -> amount;
+            };
+            if (value <= 0 || value > MAX_OFFSET_MINUTES) {
+                throw new IllegalArgumentException("Reminders can be set from 1 minute to 4 weeks before the due date.");
+            }
+            minutes.add(value);
+        }
+        return minutes;
+    }
+
+    /**
+     * Set the task's reminders, in the transaction that saves the task. Null offsets keep the current
+     * ones and move them to the task's (changed) due date. A time already past is stored as fired, so it
+     * is never sent but the offset is kept for the next due date.
+     */
+    public void replace(Task task, List<Integer> offsetMinutes) {
+        List<TaskReminder> current = reminders.findByTaskId(task.getId());
+        if (offsetMinutes == null && current.isEmpty()) {
+            return;
+        }
+        List<Integer> minutes = offsetMinutes != null ? offsetMinutes
+                : current.stream().map(TaskReminder::getOffsetMinutes).toList();
+        reminders.deleteByTaskId(task.getId());
+
+        List<TaskReminder> created = new ArrayList<>();
+        if (task.getDueDate() != null) {
+            LocalDateTime due = task.getDueDate().atTime(dueTime);
+            LocalDateTime now = LocalDateTime.now();
+            for (int offset : new LinkedHashSet<>(minutes)) {
+                LocalDateTime fireAt = due.minusMinutes(offset);
+                created.add(new TaskReminder(task, offset, fireAt, fireAt.isAfter(now) ? null : now));
+            }
+            reminders.saveAll(created);
+        }
+
+        List<Long> replaced = current.stream().map(TaskReminder::getId).toList();
+        afterCommit(() -> {
+            replaced.forEach(this::unschedule);
+            for (TaskReminder reminder : created) {
+                if (reminder.getFiredAt() == null && millis(reminder.getFireAt()) < loadedUntil) {
+                    schedule(reminder.getId(), reminder.getFireAt());
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop the task's reminders, in the transaction that deletes the task.
+     */
+    public void remove(Long taskId) {
+        List<Long> removed = reminders.findByTaskId(taskId).stream().map(TaskReminder::getId).toList();
+        if (removed.isEmpty()) {
+            return;
+        }
+        reminders.deleteByTaskId(taskId);
+        afterCommit(() -> removed.forEach(this::unschedule));
+    }
+
+    // the next slice, plus recent unfired ones: missed while no instance was up, or added on an instance
+    // that went down before they fired
+    @Scheduled(fixedDelayString = "${tasktracker.reminders.load-ms:300000}")
+    public void load() {
+        long now = System.currentTimeMillis();
+        long until = now + horizonMs;
+        // raised first, so a reminder saved while this query runs is put on the wheel by replace() instead
+        loadedUntil = until;
+        try {
+            for (TaskReminder reminder : reminders.findUnfiredBetween(local(now - catchUpMs), local(until))) {
+                schedule(reminder.getId(), reminder.getFireAt());
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[REMINDER] Loading reminders failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tasktracker.reminders.tick-ms:5000}")
+    public void advance() {
+        for (Long id : wheel.advanceTo(System.currentTimeMillis())) {
+            scheduled.remove(id);
+            try {
+                fire(id);
+            } catch (RuntimeException e) {
+                System.out.println("[REMINDER] Reminder " + id + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    int pending() {
+        return wheel.size();
+    }
+
+    // false if another instance sent it first, or the task was finished or deleted in the meantime
+    boolean fire(Long id) {
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            if (reminders.markFired(id, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            TaskReminder reminder = reminders.findWithTaskById(id).orElse(null);
+            if (reminder == null || reminder.getTask().getStatus() == Status.DONE) {
+                return false;
+            }
+            notifications.sendTaskReminder(reminder);
+            return true;
+        }));
+    }
+
+    private void schedule(Long id, LocalDateTime fireAt) {
+        scheduled.computeIfAbsent(id, key -> wheel.schedule(millis(fireAt), key));
+    }
+
+    private void unschedule(Long id) {
+        TimingWheel<Long>.Timeout timeout = scheduled.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime local(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,117 @@
+package com.tasktracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a scheduled job on one instance of the cluster. Every instance's cron fires; the one that gets
+ * the {@link JobLock} lease runs the job and renews the lease while it works, the others skip that run.
+ * If the running instance dies, it stops renewing and the next run goes to whoever fires after the lease
+ * ran out. Each run is timed under tasktracker.jobs.run (tags job, outcome), skipped runs are counted
+ * under tasktracker.jobs.skipped, and tasktracker.jobs.last-success holds the end of the last good run.
+ */
+@Service
+public class ScheduledJobRunner {
+
+    private final JobLock lock;
+    private final MeterRegistry meters;
+    private final long leaseMs;
+    private final long lockAtLeastMs;
+    private final ScheduledExecutorService renewals;
+    private final Map<String, AtomicLong> lastSuccess = new ConcurrentHashMap<>();
+
+    public ScheduledJobRunner(JobLock lock, MeterRegistry meters,
+            @Value("${tasktracker.scheduling.lease-ms:600000}") long leaseMs,
+            @Value("${tasktracker.scheduling.lock-at-least-ms:30000}") long lockAtLeastMs) {
+        this.lock = lock;
+        this.meters = meters;
+        this.leaseMs = leaseMs;
+        this.lockAtLeastMs = lockAtLeastMs;
+        this.renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run the job here if this instance gets the lease. False if another instance holds it.
+     */
+    public boolean run(String job, Runnable task) {
+        long startedAt = System.currentTimeMillis();
+        if (!lock.tryAcquire(job, startedAt + leaseMs)) {
+            Counter.builder("tasktracker.jobs.skipped").tag("job", job)
+                    .description("Runs left to the instance holding the lease").register(meters).increment();
+            return false;
+        }
+        long renewEvery = Math.max(1, leaseMs / 3);
+        ScheduledFuture<?> renewal = renewals.scheduleAtFixedRate(() -> renew(job), renewEvery, renewEvery,
+                TimeUnit.MILLISECONDS);
+        String outcome = "failure";
+        try {
+            task.run();
+            outcome = "success";
+            return true;
+        } finally {
+            renewal.cancel(false);
+            long finishedAt = System.currentTimeMillis();
+            Timer.builder("tasktracker.jobs.run").tag("job", job).tag("outcome", outcome)
+                    .description("Scheduled job runs on this instance").register(meters)
+                    .record(finishedAt - startedAt, TimeUnit.MILLISECONDS);
+            if ("success".equals(outcome)) {
+                lastSuccess(job).set(finishedAt);
+            }
+            release(job, Math.max(finishedAt, startedAt + lockAtLeastMs));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewals.shutdownNow();
+    }
+
+    // a job that lost its lease keeps going (it can't be stopped halfway safely); the outbox idempotency
+    // keys stop a second instance that picked the job up from sending the same mail again
+    private void renew(String job) {
+        try {
+            if (!lock.extend(job, System.currentTimeMillis() + leaseMs)) {
+                System.out.println("[JOBS] Lost the lease on " + job + " to another instance");
+                Counter.builder("tasktracker.jobs.lease.lost").tag("job", job).register(meters).increment();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[JOBS] Could not renew the lease on " + job + ": " + e.getMessage());
+        }
+    }
+
+    // held a little past a short run, so an instance whose clock is slightly behind doesn't run it again
+    private void release(String job, long until) {
+        try {
+            lock.extend(job, until);
+        } catch (RuntimeException e) {
+            System.out.println("[JOBS] Could not release the lease on " + job + ": " + e.getMessage());
+        }
+    }
+
+    private AtomicLong lastSuccess(String job) {
+        return lastSuccess.computeIfAbsent(job, name -> {
+            AtomicLong finishedAt = new AtomicLong();
+            Gauge.builder("tasktracker.jobs.last-success", finishedAt, value -> value.get() / 1000.0)
+                    .tag("job", name).baseUnit("seconds").description("When the job last finished without error")
+                    .register(meters);
+            return finishedAt;
+        });
+    }
+}
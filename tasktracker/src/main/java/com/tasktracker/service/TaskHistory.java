@@ -0,0 +1,130 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.Status;
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskHistoryEntry;
+import com.tasktracker.repo.TaskHistoryRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The change log of each task. TaskService reports its changes here as they happen; the field diffs
+ * are worked out in the request and handed to {@link TaskHistoryWriter} once the change commits, so
+ * nothing is logged for a change that rolled back and the edit never waits for the insert. A page of
+ * history shows entries up to a flush interval late.
+ */
+@Service
+public class TaskHistory {
+
+    static final int MAX_PAGE = 100;
+
+    private final TaskHistoryWriter writer;
+    private final TaskHistoryRepository history;
+    private final ObjectMapper json;
+
+    public TaskHistory(TaskHistoryWriter writer, TaskHistoryRepository history, ObjectMapper json) {
+        this.writer = writer;
+        this.history = history;
+        this.json = json;
+    }
+
+    // the fields a diff compares
+    record Snapshot(String title, String description, Priority priority, Status status, LocalDate dueDate,
+            Long categoryId) {
+
+        static final Snapshot NONE = new Snapshot(null, null, null, null, null, null);
+
+        static Snapshot of(Task task) {
+            return new Snapshot(task.getTitle(), task.getDescription(), task.getPriority(), task.getStatus(),
+                    task.getDueDate(), task.getCategory() == null ? null : task.getCategory().getId());
+        }
+    }
+
+    void created(Long actorId, Task task) {
+        log(task.getId(), task.getOwner().getId(), actorId, "created", diff(Snapshot.NONE, Snapshot.of(task)));
+    }
+
+    // nothing is logged for an update that changed nothing
+    void updated(Long actorId, Snapshot before, Task after) {
+        Map<String, Map<String, Object>> changes = diff(before, Snapshot.of(after));
+        if (!changes.isEmpty()) {
+            log(after.getId(), after.getOwner().getId(), actorId, "updated", changes);
+        }
+    }
+
+    // the task's last state, as "from" values
+    void deleted(Long actorId, Task task) {
+        log(task.getId(), task.getOwner().getId(), actorId, "deleted", diff(Snapshot.of(task), Snapshot.NONE));
+    }
+
+    // status transitions change the row without reading it, so only the new status is known
+    void statusChanged(Long ownerId, Collection<Long> taskIds, Status to) {
+        for (Long taskId : taskIds) {
+            log(taskId, ownerId, ownerId, "status", Map.of("status", Map.of("to", to)));
+        }
+    }
+
+    // newest first; pass the last id of the previous page as beforeId to get the next one
+    @Transactional(readOnly = true)
+    public List<TaskHistoryEntry> page(Long userId, Long taskId, Long beforeId, int size) {
+        return history.findByTaskIdAndUserIdAndIdLessThanOrderByIdDesc(taskId, userId,
+                beforeId == null ? Long.MAX_VALUE : beforeId, PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE))));
+    }
+
+    private void log(Long taskId, Long ownerId, Long actorId, String action, Map<String, ?> changes) {
+        TaskHistoryWriter.Change change;
+        try {
+            change = new TaskHistoryWriter.Change(UUID.randomUUID().toString(), taskId, ownerId, actorId, action,
+                    json.writeValueAsString(changes), LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            System.out.println("[HISTORY] Could not serialize the changes of task " + taskId + ": " + e.getMessage());
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writer.append(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                writer.append(change);
+            }
+        });
+    }
+
+    private static Map<String, Map<String, Object>> diff(Snapshot before, Snapshot after) {
+        Map<String, Map<String, Object>> changes = new LinkedHashMap<>();
+        field(changes, "title", before.title(), after.title());
+        field(changes, "description", before.description(), after.description());
+        field(changes, "priority", before.priority(), after.priority());
+        field(changes, "status", before.status(), after.status());
+        field(changes, "dueDate", before.dueDate(), after.dueDate());
+        field(changes, "categoryId", before.categoryId(), after.categoryId());
+        return changes;
+    }
+
+    private static void field(Map<String, Map<String, Object>> changes, String name, Object from, Object to) {
+        if (!Objects.equals(from, to)) {
+            // a LinkedHashMap, as Map.of doesn't take the nulls of a field being set or cleared
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("from", from);
+            change.put("to", to);
+            changes.put(name, change);
+        }
+    }
+}
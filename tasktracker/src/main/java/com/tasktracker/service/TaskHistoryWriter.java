@@ -0,0 +1,423 @@
+package com.tasktracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.repo.TaskHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes task history in the background, so an edit doesn't wait for its history insert. Producers
+ * append the entry to a local journal and queue it; one writer thread inserts whatever is queued in a
+ * single transaction once it has a batch or the oldest entry has waited the flush interval. When the
+ * queue is full, producers wait up to the pushback time for room; an entry that gets none stays in the
+ * journal only, and the writer reads it back from there once the queue is idle.
+ *
+ * The journal is a series of segment files of one JSON line per entry, in a directory of its own per
+ * instance. Segments are deleted once every entry in them is in the database, and the ones left behind
+ * by a crash are replayed on startup;
+ * entries are inserted with insert ignore on their key, so an entry written just before the crash isn't
+ * logged twice. The journal is synced to disk before each batch, so a machine crash loses at most one
+ * flush interval.
+ */
+@Service
+public class TaskHistoryWriter {
+
+    private static final Pattern SEGMENT = Pattern.compile("history-(\\d+)\\.log");
+
+    private final TaskHistoryRepository history;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper json;
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    // room in the queue; taken by producers, given back once an entry is written
+    private final Semaphore space;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushMs;
+    private final long pushbackMs;
+    private final Journal journal;
+    // journaled entries not in the database yet, and those of them the queue had no room for, by segment;
+    // both under the journal's lock
+    private final NavigableMap<Long, Integer> unwritten = new TreeMap<>();
+    private final NavigableMap<Long, Integer> dropped = new TreeMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public TaskHistoryWriter(TaskHistoryRepository history, PlatformTransactionManager transactionManager,
+            ObjectMapper json,
+            @Value("${tasktracker.history.queue-capacity:10000}") int queueCapacity,
+            @Value("${tasktracker.history.batch-size:200}") int batchSize,
+            @Value("${tasktracker.history.flush-ms:1000}") long flushMs,
+            @Value("${tasktracker.history.pushback-ms:2000}") long pushbackMs,
+            @Value("${tasktracker.history.journal-dir:}") String journalDir,
+            @Value("${tasktracker.scheduling.node-id:}") String nodeId,
+            @Value("${server.port:8080}") int port,
+            @Value("${tasktracker.history.segment-bytes:4194304}") long segmentBytes) throws IOException {
+        this.history = history;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.json = json;
+        this.space = new Semaphore(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.pushbackMs = pushbackMs;
+        // instances on one host would replay, and delete, each other's segments
+        this.journal = new Journal(Path.of(journalDir.isBlank() ? "history-journal/" + NodeId.stable(nodeId, port)
+                : journalDir), segmentBytes);
+        this.writer = new Thread(this::work, "task-history");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * One entry as journaled and written
+     */
+    public record Change(String key, Long taskId, Long userId, Long actorId, String action, String changes,
+            LocalDateTime changedAt) {
+    }
+
+    /**
+     * Journals and queues an entry, waiting for room up to the pushback time; false if it was not queued,
+     * in which case it is written from the journal later (or lost, if it could not be journaled)
+     */
+    public boolean append(Change change) {
+        byte[] line;
+        try {
+            line = (json.writeValueAsString(change) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("[HISTORY] Could not serialize the entry of task " + change.taskId() + ": " + e.getMessage());
+            return false;
+        }
+        // journaled first, so an entry the queue has no room for is still kept
+        long segment = 0;
+        synchronized (journal) {
+            try {
+                segment = journal.append(line);
+                unwritten.merge(segment, 1, Integer::sum);
+            } catch (IOException e) {
+                // still written from memory; only a crash before then loses it
+                System.out.println("[HISTORY] Could not journal the entry of task " + change.taskId() + ": " + e.getMessage());
+            }
+        }
+        boolean room = false;
+        try {
+            room = running && space.tryAcquire(pushbackMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (room) {
+            queue.add(new Queued(change, segment));
+            return true;
+        }
+        if (segment == 0) {
+            System.out.println("[HISTORY] Writer is behind, dropped the " + change.action() + " entry of task " + change.taskId());
+            return false;
+        }
+        synchronized (journal) {
+            dropped.merge(segment, 1, Integer::sum);
+        }
+        System.out.println("[HISTORY] Writer is behind, left the " + change.action() + " entry of task " + change.taskId()
+                + " in the journal");
+        return false;
+    }
+
+    /**
+     * Entries appended but not in the database yet, the batch being written included
+     */
+    public int queued() {
+        synchronized (journal) {
+            return queueCapacity - space.availablePermits() + dropped.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // the writer finishes what is queued, for a bounded time; anything left is replayed on the next start
+        running = false;
+        writer.join(10_000);
+        synchronized (journal) {
+            journal.close();
+        }
+    }
+
+    private void work() {
+        replay();
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (running && !catchUp()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushMs;
+                while (batch.size() < batchSize && running) {
+                    Queued next = queue.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                if (!flush(batch)) {
+                    return; // stopping with the database unreachable; the journal keeps the rest
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("[HISTORY] Writer error: " + e.getMessage());
+            } finally {
+                space.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean flush(List<Queued> batch) throws InterruptedException {
+        synchronized (journal) {
+            journal.force();
+        }
+        if (!write(batch.stream().map(Queued::change).toList())) {
+            return false;
+        }
+        synchronized (journal) {
+            batch.stream().filter(queued -> queued.segment() > 0).forEach(queued -> written(queued.segment(), 1));
+            release();
+        }
+        return true;
+    }
+
+    // the entries the queue had no room for, read back from their segments; the other entries there are
+    // written already or still queued, and insert ignore skips them. False if the application stops first
+    private boolean catchUp() throws InterruptedException {
+        Map<Long, Integer> segments;
+        List<Change> changes = new ArrayList<>();
+        synchronized (journal) {
+            if (dropped.isEmpty()) {
+                return true;
+            }
+            segments = new TreeMap<>(dropped);
+            try {
+                for (long segment : segments.keySet()) {
+                    changes.addAll(read(journal.path(segment)));
+                }
+            } catch (IOException e) {
+                // they stay in the journal for the next start
+                System.out.println("[HISTORY] Could not read the journal back: " + e.getMessage());
+                return true;
+            } finally {
+                dropped.clear();
+            }
+        }
+        for (int from = 0; from < changes.size(); from += batchSize) {
+            if (!write(changes.subList(from, Math.min(from + batchSize, changes.size())))) {
+                return false;
+            }
+        }
+        synchronized (journal) {
+            segments.forEach(this::written);
+            release();
+        }
+        System.out.println("[HISTORY] Wrote the entries left in " + segments.size() + " journal segment(s)");
+        return true;
+    }
+
+    // callers hold the journal's lock
+    private void written(long segment, int entries) {
+        unwritten.computeIfPresent(segment, (key, count) -> count > entries ? count - entries : null);
+    }
+
+    // everything before the oldest segment with an unwritten entry is in the database
+    private void release() {
+        journal.release(unwritten.isEmpty() ? Long.MAX_VALUE : unwritten.firstKey());
+    }
+
+    // retried with backoff until it succeeds; false only if the application stops first
+    private boolean write(List<Change> changes) throws InterruptedException {
+        long backoffMs = Math.max(flushMs, 100);
+        while (true) {
+            try {
+                transaction.executeWithoutResult(status -> changes.forEach(this::insert));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // an entry no retry will fix (its user was deleted meanwhile): one at a time, dropping those
+                for (Change change : changes) {
+                    try {
+                        transaction.executeWithoutResult(status -> insert(change));
+                    } catch (DataIntegrityViolationException rejected) {
+                        System.out.println("[HISTORY] Dropped the " + change.action() + " entry of task "
+                                + change.taskId() + ": " + rejected.getMostSpecificCause().getMessage());
+                    }
+                }
+                return true;
+            } catch (RuntimeException e) {
+                System.out.println("[HISTORY] Could not write " + changes.size() + " entries: " + e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void insert(Change change) {
+        history.append(change.taskId(), change.userId(), change.actorId(), change.action(), change.changes(),
+                change.changedAt(), change.key());
+    }
+
+    // segments a previous run left behind: written in order, then deleted
+    private void replay() {
+        for (Path segment : journal.recovered()) {
+            try {
+                List<Change> changes = read(segment);
+                for (int from = 0; from < changes.size(); from += batchSize) {
+                    if (!write(changes.subList(from, Math.min(from + batchSize, changes.size())))) {
+                        return;
+                    }
+                }
+                Files.delete(segment);
+                System.out.println("[HISTORY] Replayed journal segment " + segment.getFileName());
+            } catch (IOException e) {
+                System.out.println("[HISTORY] Could not replay " + segment.getFileName() + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<Change> read(Path segment) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            try {
+                changes.add(json.readValue(line, Change.class));
+            } catch (IOException e) {
+                // the line being written when the process died
+                System.out.println("[HISTORY] Skipped an unreadable journal line in " + segment.getFileName());
+            }
+        }
+        return changes;
+    }
+
+    // segment 0 if the entry could not be journaled
+    private record Queued(Change change, long segment) {
+    }
+
+    // history-<n>.log files, appended to the newest; callers hold its lock
+    private static final class Journal {
+        private final Path dir;
+        private final long segmentBytes;
+        private final List<Path> recovered = new ArrayList<>();
+        private long first;
+        private long current;
+        private FileChannel out;
+
+        Journal(Path dir, long segmentBytes) throws IOException {
+            this.dir = dir;
+            this.segmentBytes = segmentBytes;
+            Files.createDirectories(dir);
+            long last = 0;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.sorted().toList()) {
+                    Matcher name = SEGMENT.matcher(file.getFileName().toString());
+                    if (name.matches()) {
+                        recovered.add(file);
+                        last = Math.max(last, Long.parseLong(name.group(1)));
+                    }
+                }
+            }
+            first = current = last + 1;
+            out = open(current);
+        }
+
+        List<Path> recovered() {
+            return recovered;
+        }
+
+        // returns the segment the line went to
+        long append(byte[] line) throws IOException {
+            if (out.size() >= segmentBytes) {
+                out.close();
+                out = open(++current);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            return current;
+        }
+
+        void force() {
+            try {
+                out.force(false);
+            } catch (IOException e) {
+                System.out.println("[HISTORY] Could not sync the journal: " + e.getMessage());
+            }
+        }
+
+        // drops the segments before the given one; past the newest, empties the journal
+        void release(long oldestPending) {
+            try {
+                for (; first < Math.min(oldestPending, current); first++) {
+                    Files.deleteIfExists(path(first));
+                }
+                if (oldestPending > current) {
+                    out.truncate(0);
+                }
+            } catch (IOException e) {
+                System.out.println("[HISTORY] Could not trim the journal: " + e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                out.close();
+                // nothing pending: don't leave an empty segment for the next start
+                if (Files.size(path(current)) == 0) {
+                    Files.delete(path(current));
+                }
+            } catch (IOException e) {
+                System.out.println("[HISTORY] Could not close the journal: " + e.getMessage());
+            }
+        }
+
+        private FileChannel open(long segment) throws IOException {
+            return FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        Path path(long segment) {
+            return dir.resolve(String.format("history-%012d.log", segment));
+        }
+    }
+}
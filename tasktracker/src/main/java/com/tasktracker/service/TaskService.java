@@ -6,23 +6,63 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class TaskService {
 
+    static final int MAX_BULK_IDS = 500;
+
+    /**
+     * The status changes that have their own endpoint, each with the states it may start from.
+     */
+    public enum Transition {
+        COMPLETE(Status.DONE, EnumSet.of(Status.PENDING, Status.IN_PROGRESS, Status.OVERDUE)),
+        REOPEN(Status.PENDING, EnumSet.of(Status.DONE)),
+        START(Status.IN_PROGRESS, EnumSet.of(Status.PENDING, Status.OVERDUE));
+
+        private final Status target;
+        private final Set<Status> from;
+
+        Transition(Status target, Set<Status> from) {
+            this.target = target;
+            this.from = from;
+        }
+
+        public Status target() {
+            return target;
+        }
+    }
+
     private final TaskRepository taskRepository;
     private final AppUserRepository appUserRepository;
     private final CategoryRepository categoryRepository;
+    private final ReminderScheduler reminderScheduler;
+    private final NextTasks nextTasks;
+    private final TaskSyncService taskSync;
+    private final TaskHistory taskHistory;
 
     public TaskService(TaskRepository taskRepository,
             AppUserRepository appUserRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository,
+            ReminderScheduler reminderScheduler,
+            NextTasks nextTasks,
+            TaskSyncService taskSync,
+            TaskHistory taskHistory) {
         this.taskRepository = taskRepository;
         this.appUserRepository = appUserRepository;
         this.categoryRepository = categoryRepository;
+        this.reminderScheduler = reminderScheduler;
+        this.nextTasks = nextTasks;
+        this.taskSync = taskSync;
+        this.taskHistory = taskHistory;
     }
 
     /**
@@ -61,7 +101,7 @@ public class TaskService {
      * Create a new task
      */
     public Task createTask(String username, String title, String description,
-            Priority priority, Status status, String dueDate, Long categoryId) {
+            Priority priority, Status status, String dueDate, Long categoryId, List<String> reminders) {
         AppUser owner = getCurrentUser(username);
 
         // Validate required fields
@@ -94,14 +134,21 @@ public class TaskService {
             task.setCategory(category);
         }
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        if (reminders != null && !reminders.isEmpty()) {
+            reminderScheduler.replace(saved, ReminderScheduler.parseOffsets(reminders));
+        }
+        taskSync.changed(owner.getId(), saved.getId(), false);
+        taskHistory.created(owner.getId(), saved);
+        nextTasks.evict(owner.getId());
+        return saved;
     }
 
     /**
-     * Update an existing task
+     * Update an existing task; null reminders keeps the current ones (moved along with the due date)
      */
     public Task updateTask(String username, Long taskId, String title, String description,
-            Priority priority, Status status, String dueDate, Long categoryId) {
+            Priority priority, Status status, String dueDate, Long categoryId, List<String> reminders) {
         AppUser currentUser = getCurrentUser(username);
 
         Task task = taskRepository.findById(taskId)
@@ -111,6 +158,7 @@ public class TaskService {
         if (!task.getOwner().getId().equals(currentUser.getId())) {
             throw new RuntimeException("Access denied. You can only update your own tasks.");
         }
+        TaskHistory.Snapshot before = TaskHistory.Snapshot.of(task);
 
         // Update fields if provided
         if (title != null && !title.trim().isEmpty()) {
@@ -127,6 +175,7 @@ public class TaskService {
         }
 
         // Update due date if provided
+        LocalDate previousDueDate = task.getDueDate();
         if (dueDate != null && !dueDate.trim().isEmpty()) {
             try {
                 task.setDueDate(LocalDate.parse(dueDate));
@@ -142,7 +191,16 @@ public class TaskService {
             task.setCategory(category);
         }
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        if (reminders != null) {
+            reminderScheduler.replace(saved, ReminderScheduler.parseOffsets(reminders));
+        } else if (!Objects.equals(previousDueDate, saved.getDueDate())) {
+            reminderScheduler.replace(saved, null);
+        }
+        taskSync.changed(currentUser.getId(), saved.getId(), false);
+        taskHistory.updated(currentUser.getId(), before, saved);
+        nextTasks.evict(currentUser.getId());
+        return saved;
     }
 
     /**
@@ -159,7 +217,52 @@ public class TaskService {
             throw new RuntimeException("Access denied. You can only delete your own tasks.");
         }
 
+        reminderScheduler.remove(taskId);
         taskRepository.deleteById(taskId);
+        taskSync.changed(currentUser.getId(), taskId, true);
+        taskHistory.deleted(currentUser.getId(), task);
+        nextTasks.evict(currentUser.getId());
+    }
+
+    /**
+     * Moves one of the owner's tasks without loading it: a single conditional update (and the sync stamp
+     * when it changed something), and a read only when nothing changed. Returns the task's state afterwards, which is not the transition's target if the
+     * task was in a state it cannot start from; null if the owner has no such task.
+     */
+    public TaskState transition(Long ownerId, Long taskId, Transition transition) {
+        LocalDateTime completedAt = transition.target == Status.DONE ? LocalDateTime.now() : null;
+        if (taskRepository.transition(List.of(taskId), ownerId, transition.from, transition.target, completedAt) == 1) {
+            taskSync.changed(ownerId, taskId, false);
+            taskHistory.statusChanged(ownerId, List.of(taskId), transition.target);
+            nextTasks.evict(ownerId);
+            return new TaskState(taskId, transition.target, completedAt);
+        }
+        // already there, in a state it can't move from, or not the owner's
+        List<TaskState> current = taskRepository.findStates(List.of(taskId), ownerId);
+        return current.isEmpty() ? null : current.get(0);
+    }
+
+    /**
+     * The same for many tasks at once: the owner's tasks among the ids that can move are locked and moved
+     * with one update, then one read of where the owner's tasks among the ids ended up. Only the moved
+     * tasks are sync-stamped and get a history entry; ids of other users' tasks are left out.
+     */
+    public List<TaskState> transition(Long ownerId, Collection<Long> taskIds, Transition transition) {
+        if (taskIds.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " tasks at a time");
+        }
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> moving = taskRepository.lockMovable(taskIds, ownerId, transition.from);
+        if (!moving.isEmpty()) {
+            taskRepository.transition(moving, ownerId, transition.from, transition.target,
+                    transition.target == Status.DONE ? LocalDateTime.now() : null);
+            taskSync.changed(ownerId, moving);
+            taskHistory.statusChanged(ownerId, moving, transition.target);
+            nextTasks.evict(ownerId);
+        }
+        return taskRepository.findStates(taskIds, ownerId);
     }
 
     /**
@@ -0,0 +1,197 @@
+package com.tasktracker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. The first level has one bucket per tick; every level above it has buckets
+ * as wide as the whole level below, and only exists once something is scheduled that far ahead.
+ * Scheduling and cancelling are O(1): a timeout is linked into the bucket for its deadline and unlinked
+ * on cancel. {@link #advanceTo} moves the clock a tick at a time, returning what expired and moving the
+ * contents of a higher-level bucket down a level once its time has come. Deadlines are rounded to the
+ * tick, so a timeout can expire up to one tick early. Thread-safe; every operation locks the wheel.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final Level root;
+    // scheduled with a deadline that had already passed, handed out by the next advanceTo
+    private final List<Timeout> overdue = new ArrayList<>();
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMs, startMs);
+    }
+
+    synchronized Timeout schedule(long deadlineMs, T payload) {
+        Timeout timeout = new Timeout(deadlineMs, payload);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Move the clock to now and return the payloads that expired, in no particular order.
+     */
+    synchronized List<T> advanceTo(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        for (Timeout timeout : overdue) {
+            expired.add(timeout.payload);
+        }
+        overdue.clear();
+        while (root.currentTime + tickMs <= nowMs) {
+            long time = root.currentTime + tickMs;
+            root.currentTime = time;
+            // higher-level buckets starting now move down a level, or expire if they are due this tick
+            for (Level level = root.overflow; level != null; level = level.overflow) {
+                if (time % level.tick == 0) {
+                    level.currentTime = time;
+                    for (Timeout timeout : level.flush(time)) {
+                        expired.add(timeout.payload);
+                    }
+                }
+            }
+            for (Timeout timeout : root.flush(time)) {
+                expired.add(timeout.payload);
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // the lowest level whose span covers the deadline; expired timeouts go to the overdue list
+    private void place(Timeout timeout) {
+        if (timeout.deadline < root.currentTime + tickMs) {
+            overdue.add(timeout);
+            timeout.bucket = overdue;
+            return;
+        }
+        Level level = root;
+        while (timeout.deadline >= level.currentTime + level.span()) {
+            level = level.overflow();
+        }
+        level.bucketFor(timeout.deadline).append(timeout);
+    }
+
+    final class Timeout {
+        private final long deadline;
+        private final T payload;
+        private Timeout prev;
+        private Timeout next;
+        private Object bucket; // a Bucket, the overdue list, or null once expired or cancelled
+
+        private Timeout(long deadline, T payload) {
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        /**
+         * False if it already expired or was cancelled.
+         */
+        boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (bucket == null) {
+                    return false;
+                }
+                if (bucket == overdue) {
+                    overdue.remove(this);
+                } else {
+                    ((Bucket) bucket).unlink(this);
+                }
+                bucket = null;
+                size--;
+                return true;
+            }
+        }
+    }
+
+    private final class Level {
+        private final long tick;
+        private final List<Bucket> buckets;
+        private long currentTime;
+        private Level overflow;
+
+        private Level(long tick, long startMs) {
+            this.tick = tick;
+            this.currentTime = startMs - startMs % tick;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket());
+            }
+        }
+
+        private long span() {
+            return tick * wheelSize;
+        }
+
+        private Level overflow() {
+            if (overflow == null) {
+                overflow = new Level(span(), currentTime);
+            }
+            return overflow;
+        }
+
+        private Bucket bucketFor(long time) {
+            return buckets.get((int) ((time / tick) % wheelSize));
+        }
+
+        // empties the bucket for this time; whatever is not due yet goes back in a level further down
+        private List<Timeout> flush(long time) {
+            List<Timeout> expired = new ArrayList<>();
+            Bucket bucket = bucketFor(time);
+            for (Timeout timeout = bucket.takeAll(); timeout != null; ) {
+                Timeout next = timeout.next;
+                timeout.prev = timeout.next = null;
+                if (this == root || timeout.deadline < root.currentTime + tickMs) {
+                    timeout.bucket = null;
+                    expired.add(timeout);
+                } else {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+    }
+
+    // doubly linked list with a sentinel, so a timeout can unlink itself
+    private final class Bucket {
+        private final Timeout head = new Timeout(0, null);
+
+        private Bucket() {
+            head.prev = head.next = head;
+        }
+
+        private void append(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        private void unlink(Timeout timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = timeout.next = null;
+        }
+
+        // detaches the whole chain and returns its first timeout, null-terminated
+        private Timeout takeAll() {
+            if (head.next == head) {
+                return null;
+            }
+            Timeout first = head.next;
+            head.prev.next = null;
+            head.prev = head.next = head;
+            return first;
+        }
+    }
+}
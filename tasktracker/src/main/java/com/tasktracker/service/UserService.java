@@ -3,7 +3,7 @@ package com.tasktracker.service;
 import com.tasktracker.model.AppUser;
 import com.tasktracker.model.Role;
 import com.tasktracker.repo.AppUserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,11 +14,11 @@ import java.util.Optional;
 public class UserService {
 
     private final AppUserRepository appUserRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder; // hashes on a bounded pool, see SecurityConfig
     private final NotificationService notificationService;
 
     public UserService(AppUserRepository appUserRepository,
-            BCryptPasswordEncoder passwordEncoder,
+            PasswordEncoder passwordEncoder,
             NotificationService notificationService) {
         this.appUserRepository = appUserRepository;
         this.passwordEncoder = passwordEncoder;
@@ -52,13 +52,8 @@ public class UserService {
         user.setRole(Role.USER);
         AppUser savedUser = appUserRepository.save(user);
 
-        // Send welcome email
-        try {
-            notificationService.sendWelcomeEmail(savedUser);
-        } catch (Exception e) {
-            System.out.println(
-                    "[REGISTRATION] Welcome email failed for " + savedUser.getUsername() + ": " + e.getMessage());
-        }
+        // Welcome email, through the outbox in this same transaction
+        notificationService.sendWelcomeEmail(savedUser);
 
         return savedUser;
     }
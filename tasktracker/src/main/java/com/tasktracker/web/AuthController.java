@@ -4,6 +4,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -11,20 +12,29 @@ import com.tasktracker.model.AppUser;
 import com.tasktracker.model.Role;
 import com.tasktracker.service.UserService;
 
+import com.tasktracker.security.AuthenticatedUser;
+import com.tasktracker.security.GatewayIdentityVerifier;
 import com.tasktracker.security.JwtUtil;
+import com.tasktracker.security.LoginThrottle;
+import com.tasktracker.security.PasswordHashingRejectedException;
+import com.tasktracker.security.TokenDenylist;
+import com.tasktracker.security.UserStatusCache;
+import com.tasktracker.security.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/auth")
@@ -36,7 +46,13 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private TokenDenylist denylist;
+    @Autowired
+    private UserStatusCache userStatusCache;
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private GatewayIdentityVerifier gatewayIdentity;
 
     public AuthController(UserService userService) {
         this.userService = userService;
@@ -54,6 +70,8 @@ public class AuthController {
             error.put("error", "Validation Error");
             error.put("message", e.getMessage());
             return ResponseEntity.badRequest().body(error);
+        } catch (PasswordHashingRejectedException e) {
+            return busy();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Server Error");
@@ -79,23 +97,29 @@ public class AuthController {
 
     // JWT login endpoint
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest req) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest req, HttpServletRequest request) {
+        // throttled before the password is hashed, so rejected attempts cost almost nothing
+        if (!loginThrottle.tryAcquire(req.username(), request.getRemoteAddr())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Too Many Requests");
+            error.put("message", "Too many login attempts. Try again later.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "60").body(error);
+        }
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.username(), req.password()));
             if (authentication.isAuthenticated()) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(req.username());
-                String token = jwtUtil.generateToken(userDetails.getUsername());
-                Map<String, String> response = new HashMap<>();
-                response.put("token", token);
-                response.put("username", userDetails.getUsername());
-                return ResponseEntity.ok(response);
+                // the provider already loaded the user, including its id and role
+                AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+                return ResponseEntity.ok(tokenResponse(user));
             } else {
                 Map<String, String> error = new HashMap<>();
                 error.put("error", "Authentication Failed");
                 error.put("message", "Invalid credentials");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
             }
+        } catch (PasswordHashingRejectedException e) {
+            return busy();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Authentication Failed");
@@ -106,4 +130,71 @@ public class AuthController {
 
     public static record LoginRequest(@NotBlank String username, @NotBlank String password) {
     }
+
+    // Exchanges a refresh token for a new access token. The refresh token is single-use: it is revoked
+    // and a new one is returned, so a stolen refresh token stops working once the owner refreshes
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest req) {
+        Optional<VerifiedToken> refreshToken = req.refreshToken() == null ? Optional.empty()
+                : jwtUtil.verifyRefresh(req.refreshToken()).filter(token -> !denylist.isRevoked(token.tokenId()));
+        // the role is looked up again, and a deleted user can't refresh
+        Optional<Role> role = refreshToken.flatMap(token -> userStatusCache.currentRole(token.userId()));
+        if (role.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Authentication Failed");
+            error.put("message", "Invalid or expired refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+        VerifiedToken token = refreshToken.get();
+        denylist.revoke(token.tokenId(), token.expiresAt().getTime());
+        AuthenticatedUser user = new AuthenticatedUser(token.userId(), token.username(), "",
+                List.of(new SimpleGrantedAuthority("ROLE_" + role.get().name())));
+        return ResponseEntity.ok(tokenResponse(user));
+    }
+
+    // Revokes the access token (in the Authorization header, or forwarded by the gateway) and, if given, the refresh token
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) RefreshRequest req, HttpServletRequest request) {
+        Long userId = null;
+        Optional<VerifiedToken> accessToken = Optional.empty();
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            accessToken = jwtUtil.verify(authHeader.substring(7));
+        } else if (gatewayIdentity.isPresent(request)) {
+            // through the gateway the token is replaced by signed headers that carry its id and expiry
+            accessToken = gatewayIdentity.verify(request);
+        }
+        if (accessToken.isPresent()) {
+            userId = accessToken.get().userId();
+            denylist.revoke(accessToken.get().tokenId(), accessToken.get().expiresAt().getTime());
+        }
+        if (req != null && req.refreshToken() != null) {
+            Long ownerId = userId;
+            // a refresh token alone is enough to log out with, but it has to belong to the same user as the access token
+            jwtUtil.verifyRefresh(req.refreshToken())
+                    .filter(token -> ownerId == null || ownerId.equals(token.userId()))
+                    .ifPresent(token -> denylist.revoke(token.tokenId(), token.expiresAt().getTime()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    public static record RefreshRequest(String refreshToken) {
+    }
+
+    // password hashing is saturated; the request was shed rather than queued
+    private ResponseEntity<?> busy() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Busy");
+        error.put("message", "Too many requests right now. Try again in a few seconds.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").body(error);
+    }
+
+    private Map<String, Object> tokenResponse(AuthenticatedUser user) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", jwtUtil.generateToken(user));
+        response.put("refreshToken", jwtUtil.generateRefreshToken(user));
+        response.put("expiresIn", jwtUtil.getAccessTokenTtlMs() / 1000);
+        response.put("username", user.getUsername());
+        return response;
+    }
 }
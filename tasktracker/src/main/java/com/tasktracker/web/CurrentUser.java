@@ -0,0 +1,20 @@
+package com.tasktracker.web;
+
+import org.springframework.security.core.userdetails.User;
+
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.security.AuthenticatedUser;
+
+// the logged in user's id for the API controllers that only need that
+final class CurrentUser {
+
+    private CurrentUser() {}
+
+    // sessions and tokens carry the id; a plain User costs a lookup
+    static Long id(User principal, AppUserRepository users) {
+        if (principal instanceof AuthenticatedUser authenticated) {
+            return authenticated.getId();
+        }
+        return users.findByUsername(principal.getUsername()).orElseThrow().getId();
+    }
+}
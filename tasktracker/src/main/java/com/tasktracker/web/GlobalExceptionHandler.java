@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.tasktracker.security.PasswordHashingRejectedException;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,6 +23,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    // password hashing was shed under load, see BoundedPasswordEncoder
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Busy");
+        error.put("message", "Too many requests right now. Try again in a few seconds.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").body(error);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseBody
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
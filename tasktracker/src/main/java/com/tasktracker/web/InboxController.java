@@ -0,0 +1,59 @@
+package com.tasktracker.web;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tasktracker.model.InboxNotification;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.InboxService;
+
+// either the entries to mark, or upTo: everything up to that id
+record InboxReadRequest(List<Long> ids, Long upTo) {
+}
+
+@RestController
+@RequestMapping("/api/inbox")
+public class InboxController {
+
+    private final InboxService inboxService;
+    private final AppUserRepository userRepository;
+
+    public InboxController(InboxService inboxService, AppUserRepository userRepository) {
+        this.inboxService = inboxService;
+        this.userRepository = userRepository;
+    }
+
+    // newest first; for the next page pass the id of the last entry as before
+    @GetMapping
+    public List<InboxNotification> page(@AuthenticationPrincipal User principal,
+            @RequestParam(required = false) Long before, @RequestParam(defaultValue = "20") int size) {
+        return inboxService.page(userId(principal), before, size);
+    }
+
+    // the bell: one counter row, however many entries there are
+    @GetMapping("/unread-count")
+    public Map<String, Integer> unreadCount(@AuthenticationPrincipal User principal) {
+        return Map.of("unread", inboxService.unreadCount(userId(principal)));
+    }
+
+    @PostMapping("/read")
+    public Map<String, Integer> markRead(@AuthenticationPrincipal User principal, @RequestBody InboxReadRequest req) {
+        Long userId = userId(principal);
+        int marked = req.upTo() != null ? inboxService.markAllRead(userId, req.upTo())
+                : inboxService.markRead(userId, req.ids() == null ? List.of() : req.ids());
+        return Map.of("marked", marked, "unread", inboxService.unreadCount(userId));
+    }
+
+    private Long userId(User principal) {
+        return CurrentUser.id(principal, userRepository);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tasktracker.web;
+
+import java.util.List;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tasktracker.model.NextTask;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.NextTasks;
+
+// the dashboard's prioritized list: the caller's k most urgent open tasks (k is capped at 20)
+@RestController
+public class NextTasksController {
+
+    private final NextTasks nextTasks;
+    private final AppUserRepository userRepository;
+
+    public NextTasksController(NextTasks nextTasks, AppUserRepository userRepository) {
+        this.nextTasks = nextTasks;
+        this.userRepository = userRepository;
+    }
+
+    @GetMapping("/api/tasks/next")
+    public List<NextTask> next(@AuthenticationPrincipal User principal, @RequestParam(defaultValue = "5") int k) {
+        return nextTasks.top(CurrentUser.id(principal, userRepository), k);
+    }
+}
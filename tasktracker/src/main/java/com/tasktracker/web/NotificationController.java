@@ -1,15 +1,22 @@
 package com.tasktracker.web;
 
+import java.net.URI;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.tasktracker.model.AppUser;
 import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.NotificationJobs;
 import com.tasktracker.service.NotificationService;
+import com.tasktracker.service.PartitionedJobs;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -17,10 +24,13 @@ public class NotificationController {
 
     private final NotificationService notificationService;
     private final AppUserRepository userRepository;
+    private final NotificationJobs notificationJobs;
 
-    public NotificationController(NotificationService notificationService, AppUserRepository userRepository) {
+    public NotificationController(NotificationService notificationService, AppUserRepository userRepository,
+            NotificationJobs notificationJobs) {
         this.notificationService = notificationService;
         this.userRepository = userRepository;
+        this.notificationJobs = notificationJobs;
     }
 
     @PostMapping("/test")
@@ -34,32 +44,44 @@ public class NotificationController {
         }
     }
 
+    // The all-users jobs run on the job workers; these return the run at once (202, Location pointing at
+    // its status) and a trigger while it runs joins it. Once today's (this week's) run has finished there
+    // is nothing to start, so a trigger gets its final status with a 200
     @PostMapping("/overdue")
-    public String sendOverdueNotifications(@AuthenticationPrincipal User principal) {
-        try {
-            notificationService.sendOverdueNotifications();
-            return "Overdue notifications sent to all users";
-        } catch (Exception e) {
-            return "Error sending overdue notifications: " + e.getMessage();
-        }
+    public ResponseEntity<?> sendOverdueNotifications() {
+        return started(notificationJobs.startOverdue());
     }
 
     @PostMapping("/weekly-summary")
-    public String sendWeeklySummary(@AuthenticationPrincipal User principal) {
-        try {
-            notificationService.sendWeeklySummary();
-            return "Weekly summary sent to all users";
-        } catch (Exception e) {
-            return "Error sending weekly summary: " + e.getMessage();
+    public ResponseEntity<?> sendWeeklySummary() {
+        return started(notificationJobs.startWeeklySummary());
+    }
+
+    @GetMapping("/jobs/{job}/{period}")
+    public ResponseEntity<PartitionedJobs.RunStatus> getJobStatus(@PathVariable String job, @PathVariable String period) {
+        PartitionedJobs.RunStatus run = notificationJobs.status(job, period);
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.notFound().build();
+    }
+
+    private ResponseEntity<?> started(PartitionedJobs.RunStatus run) {
+        if (run == null) {
+            return ResponseEntity.ok(Map.of("message", "No users to notify"));
+        }
+        if (!run.state().equals("RUNNING")) {
+            return ResponseEntity.ok(run);
         }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/notifications/jobs/" + run.job() + "/" + run.period()))
+                .body(run);
     }
 
     @GetMapping("/status")
     public String getNotificationStatus() {
         return "Notification service is active. Available endpoints:\n" +
                "POST /api/notifications/test - Send test email\n" +
-               "POST /api/notifications/overdue - Send overdue task alerts\n" +
-               "POST /api/notifications/weekly-summary - Send weekly summary\n" +
+               "POST /api/notifications/overdue - Start today's overdue task alerts\n" +
+               "POST /api/notifications/weekly-summary - Start this week's summary\n" +
+               "GET /api/notifications/jobs/{job}/{period} - Progress of a started run\n" +
                "\nScheduled notifications:\n" +
                "- Due soon tasks: Every hour\n" +
                "- Weekly summary: Every Monday at 9 AM";
@@ -1,13 +1,18 @@
 package com.tasktracker.web;
 
 import com.tasktracker.model.*;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.IdempotentRequests;
 import com.tasktracker.service.TaskService;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 record TaskCreateRequest(
         @NotBlank String title,
@@ -15,16 +20,26 @@ record TaskCreateRequest(
         Priority priority,
         Status status,
         String dueDate, // ISO date "2025-09-01"
-        Long categoryId) {
+        Long categoryId,
+        List<String> reminders) { // e.g. ["1d", "1h"] before the due date
 }
 
+// Create, update and delete take an optional Idempotency-Key header: a retry with the same key gets the
+// first response back (marked Idempotent-Replayed) instead of running again, see IdempotentRequests
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TaskService taskService;
+    private final IdempotentRequests idempotentRequests;
+    private final AppUserRepository userRepository;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, IdempotentRequests idempotentRequests,
+            AppUserRepository userRepository) {
         this.taskService = taskService;
+        this.idempotentRequests = idempotentRequests;
+        this.userRepository = userRepository;
     }
 
     // Returns all the tasks of the current logged in user
@@ -35,22 +50,26 @@ public class TaskController {
 
     // Handles the create api - creates a new task
     @PostMapping
-    public Task create(@AuthenticationPrincipal User principal, @RequestBody TaskCreateRequest req) {
-        return taskService.createTask(
+    public ResponseEntity<?> create(@AuthenticationPrincipal User principal,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key,
+            @RequestBody TaskCreateRequest req) {
+        return once(principal, key, "POST /tasks", req, () -> taskService.createTask(
                 principal.getUsername(),
                 req.title(),
                 req.description(),
                 req.priority(),
                 req.status(),
                 req.dueDate(),
-                req.categoryId());
+                req.categoryId(),
+                req.reminders()));
     }
 
     // Finds the task by id, updates the task with the new values
     @PutMapping("/{id}")
-    public Task update(@AuthenticationPrincipal User principal, @PathVariable Long id,
+    public ResponseEntity<?> update(@AuthenticationPrincipal User principal, @PathVariable Long id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key,
             @RequestBody TaskCreateRequest req) {
-        return taskService.updateTask(
+        return once(principal, key, "PUT /tasks/" + id, req, () -> taskService.updateTask(
                 principal.getUsername(),
                 id,
                 req.title(),
@@ -58,13 +77,33 @@ public class TaskController {
                 req.priority(),
                 req.status(),
                 req.dueDate(),
-                req.categoryId());
+                req.categoryId(),
+                req.reminders()));
     }
 
     // Handles the delete api
     @DeleteMapping("/{id}")
-    public void delete(@AuthenticationPrincipal User principal, @PathVariable Long id) {
-        taskService.deleteTask(principal.getUsername(), id);
+    public ResponseEntity<?> delete(@AuthenticationPrincipal User principal, @PathVariable Long id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key) {
+        return once(principal, key, "DELETE /tasks/" + id, null, () -> {
+            taskService.deleteTask(principal.getUsername(), id);
+            return null;
+        });
+    }
+
+    // without a key the action just runs, answering as before
+    private ResponseEntity<?> once(User principal, String key, String request, Object body, Supplier<?> action) {
+        if (key == null) {
+            return ResponseEntity.ok(action.get());
+        }
+        IdempotentRequests.Outcome outcome = idempotentRequests.execute(CurrentUser.id(principal, userRepository),
+                key, request, body, action);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(outcome.status());
+        if (outcome.replayed()) {
+            response.header("Idempotent-Replayed", "true");
+        }
+        return outcome.body() == null ? response.build()
+                : response.contentType(MediaType.APPLICATION_JSON).body(outcome.body());
     }
 }
 // User logs in → SecurityContext stores the principal (User).
@@ -0,0 +1,34 @@
+package com.tasktracker.web;
+
+import java.util.List;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tasktracker.model.TaskHistoryEntry;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.TaskHistory;
+
+// A task's change log, newest first; for the next page pass the id of the last entry as before.
+// Also answers for deleted tasks; someone else's task just has no history.
+@RestController
+public class TaskHistoryController {
+
+    private final TaskHistory taskHistory;
+    private final AppUserRepository userRepository;
+
+    public TaskHistoryController(TaskHistory taskHistory, AppUserRepository userRepository) {
+        this.taskHistory = taskHistory;
+        this.userRepository = userRepository;
+    }
+
+    @GetMapping("/api/tasks/{id}/history")
+    public List<TaskHistoryEntry> history(@AuthenticationPrincipal User principal, @PathVariable Long id,
+            @RequestParam(required = false) Long before, @RequestParam(defaultValue = "20") int size) {
+        return taskHistory.page(CurrentUser.id(principal, userRepository), id, before, size);
+    }
+}
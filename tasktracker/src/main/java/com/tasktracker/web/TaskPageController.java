@@ -1,9 +1,12 @@
 package com.tasktracker.web;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Controller;
@@ -18,18 +21,24 @@ import com.tasktracker.model.Task;
 import com.tasktracker.repo.AppUserRepository;
 import com.tasktracker.repo.CategoryRepository;
 import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.InboxService;
 
 @Controller
 public class TaskPageController {
 
+    static final int MAX_NOTIFICATION_CARDS = 50;
+
     private final TaskRepository taskRepository;
     private final CategoryRepository categoryRepository;
     private final AppUserRepository userRepository;
+    private final InboxService inboxService;
 
-    public TaskPageController(TaskRepository taskRepository, CategoryRepository categoryRepository, AppUserRepository userRepository) {
+    public TaskPageController(TaskRepository taskRepository, CategoryRepository categoryRepository, AppUserRepository userRepository,
+            InboxService inboxService) {
         this.taskRepository = taskRepository;
         this.categoryRepository = categoryRepository;
         this.userRepository = userRepository;
+        this.inboxService = inboxService;
     }
 //get current logged in user
     private AppUser getCurrentUser(User principal) {
@@ -89,7 +98,13 @@ public class TaskPageController {
 
     @GetMapping("/pages/categories")
     public String categoriesPage(Model model) {
+        // one grouped count instead of initializing every category's task list
+        Map<Long, Long> taskCounts = new HashMap<>();
+        for (Object[] row : taskRepository.countByCategory()) {
+            taskCounts.put((Long) row[0], (Long) row[1]);
+        }
         model.addAttribute("categories", categoryRepository.findAll());
+        model.addAttribute("taskCounts", taskCounts);
         return "categories";
     }
 
@@ -111,32 +126,23 @@ public class TaskPageController {
         return "analytics";
     }
 
+    // The inbox entries load from /api/inbox; the page itself reads the unread counter and a bounded slice
+    // of the tasks due today or overdue, never all of the user's tasks
     @GetMapping("/pages/notifications")
     public String notificationsPage(@AuthenticationPrincipal User user, Model model) {
         AppUser currentUser = getCurrentUser(user);
-        List<Task> tasks = taskRepository.findByOwner(currentUser);
-        
         LocalDate today = LocalDate.now();
-        
-        List<Task> overdueTasks = tasks.stream()
-            .filter(t -> t.getDueDate() != null && t.getDueDate().isBefore(today) && t.getStatus() != Status.DONE)
-            .collect(Collectors.toList());
-            
-        List<Task> dueTodayTasks = tasks.stream()
-            .filter(t -> t.getDueDate() != null && t.getDueDate().equals(today) && t.getStatus() != Status.DONE)
-            .collect(Collectors.toList());
-        
-        long totalTasks = tasks.size();
-        long completedTasks = tasks.stream().filter(t -> t.getStatus() == Status.DONE).count();
-        long pendingTasks = totalTasks - completedTasks;
-        int productivityRate = totalTasks > 0 ? (int) ((completedTasks * 100) / totalTasks) : 0;
-        
-        model.addAttribute("overdueTasks", overdueTasks);
-        model.addAttribute("dueTodayTasks", dueTodayTasks);
-        model.addAttribute("totalTasks", totalTasks);
-        model.addAttribute("completedTasks", completedTasks);
-        model.addAttribute("pendingTasks", pendingTasks);
-        model.addAttribute("productivityRate", productivityRate);
+        List<Task> due = taskRepository.findOpenDueBy(currentUser.getId(), today,
+                PageRequest.of(0, MAX_NOTIFICATION_CARDS));
+
+        model.addAttribute("overdueTasks", due.stream()
+            .filter(t -> t.getDueDate().isBefore(today))
+            .collect(Collectors.toList()));
+        model.addAttribute("dueTodayTasks", due.stream()
+            .filter(t -> t.getDueDate().equals(today))
+            .collect(Collectors.toList()));
+        model.addAttribute("moreDue", due.size() == MAX_NOTIFICATION_CARDS);
+        model.addAttribute("unreadCount", inboxService.unreadCount(currentUser.getId()));
         return "notifications";
     }
 }
@@ -0,0 +1,86 @@
+package com.tasktracker.web;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tasktracker.model.TaskState;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.TaskService;
+import com.tasktracker.service.TaskService.Transition;
+
+record TaskIdsRequest(List<Long> ids) {
+}
+
+// Status changes without the PUT /tasks/{id} round trip: one conditional update each, answering with
+// the task's new status and completion time. Moving to the state a task is already in is a no-op (200);
+// a task that can't make the move (reopening one that isn't done) is a 409 with its current state.
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskStatusController {
+
+    private final TaskService taskService;
+    private final AppUserRepository userRepository;
+
+    public TaskStatusController(TaskService taskService, AppUserRepository userRepository) {
+        this.taskService = taskService;
+        this.userRepository = userRepository;
+    }
+
+    @PatchMapping("/{id}/complete")
+    public ResponseEntity<TaskState> complete(@AuthenticationPrincipal User principal, @PathVariable Long id) {
+        return move(principal, id, Transition.COMPLETE);
+    }
+
+    @PatchMapping("/{id}/reopen")
+    public ResponseEntity<TaskState> reopen(@AuthenticationPrincipal User principal, @PathVariable Long id) {
+        return move(principal, id, Transition.REOPEN);
+    }
+
+    @PatchMapping("/{id}/start")
+    public ResponseEntity<TaskState> start(@AuthenticationPrincipal User principal, @PathVariable Long id) {
+        return move(principal, id, Transition.START);
+    }
+
+    // bulk variants: {"ids": [...]}, answering with the state of each of the caller's tasks among them
+    @PatchMapping("/complete")
+    public Map<String, List<TaskState>> completeAll(@AuthenticationPrincipal User principal,
+            @RequestBody TaskIdsRequest req) {
+        return moveAll(principal, req, Transition.COMPLETE);
+    }
+
+    @PatchMapping("/reopen")
+    public Map<String, List<TaskState>> reopenAll(@AuthenticationPrincipal User principal,
+            @RequestBody TaskIdsRequest req) {
+        return moveAll(principal, req, Transition.REOPEN);
+    }
+
+    @PatchMapping("/start")
+    public Map<String, List<TaskState>> startAll(@AuthenticationPrincipal User principal,
+            @RequestBody TaskIdsRequest req) {
+        return moveAll(principal, req, Transition.START);
+    }
+
+    private ResponseEntity<TaskState> move(User principal, Long id, Transition transition) {
+        TaskState state = taskService.transition(CurrentUser.id(principal, userRepository), id, transition);
+        if (state == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return state.status() == transition.target() ? ResponseEntity.ok(state)
+                : ResponseEntity.status(HttpStatus.CONFLICT).body(state);
+    }
+
+    private Map<String, List<TaskState>> moveAll(User principal, TaskIdsRequest req, Transition transition) {
+        List<Long> ids = req.ids() == null ? List.of() : req.ids();
+        return Map.of("tasks", taskService.transition(CurrentUser.id(principal, userRepository), ids, transition));
+    }
+}
@@ -0,0 +1,30 @@
+package com.tasktracker.web;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.service.TaskSyncService;
+
+// Delta sync: the caller's task changes after the cursor of their last page ("since"), oldest first.
+// Clients keep asking with the returned cursor while hasMore is set, and store it for the next reconnect.
+@RestController
+public class TaskSyncController {
+
+    private final TaskSyncService taskSync;
+    private final AppUserRepository userRepository;
+
+    public TaskSyncController(TaskSyncService taskSync, AppUserRepository userRepository) {
+        this.taskSync = taskSync;
+        this.userRepository = userRepository;
+    }
+
+    @GetMapping("/api/sync/tasks")
+    public TaskSyncService.Page changes(@AuthenticationPrincipal User principal,
+            @RequestParam(required = false) String since, @RequestParam(defaultValue = "200") int size) {
+        return taskSync.since(CurrentUser.id(principal, userRepository), since, size);
+    }
+}
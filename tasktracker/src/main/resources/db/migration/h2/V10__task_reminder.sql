@@ -0,0 +1,13 @@
+-- Same table as db/migration/mysql/V10.
+
+create table task_reminder (
+    id bigint not null auto_increment,
+    task_id bigint not null,
+    offset_minutes integer not null,
+    fire_at timestamp(6) not null,
+    fired_at timestamp(6),
+    primary key (id),
+    constraint fk_task_reminder_task foreign key (task_id) references task (id) on delete cascade
+);
+
+create index idx_task_reminder_fire_at on task_reminder (fire_at);
@@ -0,0 +1,5 @@
+-- Same columns as db/migration/mysql/V11, without the MySQL online DDL clauses.
+
+alter table job_partition add column users_processed integer not null default 0;
+alter table job_partition add column mails_queued integer not null default 0;
+alter table job_partition add column failures integer not null default 0;
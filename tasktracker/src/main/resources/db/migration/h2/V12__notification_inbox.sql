@@ -0,0 +1,25 @@
+-- Same tables as db/migration/mysql/V12.
+
+create table inbox_notification (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    kind varchar(32) not null,
+    title varchar(255) not null,
+    body clob not null,
+    task_id bigint,
+    idempotency_key varchar(191) not null,
+    created_at timestamp(6) not null,
+    read_at timestamp(6),
+    primary key (id),
+    constraint uk_inbox_notification_key unique (idempotency_key),
+    constraint fk_inbox_notification_user foreign key (user_id) references users (id) on delete cascade
+);
+
+create index idx_inbox_notification_user_id on inbox_notification (user_id, id);
+
+create table notification_counter (
+    user_id bigint not null,
+    unread integer not null,
+    primary key (user_id),
+    constraint fk_notification_counter_user foreign key (user_id) references users (id) on delete cascade
+);
@@ -0,0 +1,3 @@
+-- Same column as db/migration/mysql/V13, without the MySQL online DDL clauses.
+
+alter table task add column completed_at timestamp(6);
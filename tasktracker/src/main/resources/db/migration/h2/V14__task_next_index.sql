@@ -0,0 +1,3 @@
+-- Same index as db/migration/mysql/V14, without the MySQL online DDL clauses.
+
+create index idx_task_owner_status_priority_due on task (owner_id, status, priority, due_date);
@@ -0,0 +1,25 @@
+-- Same tables and backfill as db/migration/mysql/V15.
+
+create table task_sync (
+    task_id bigint not null,
+    user_id bigint not null,
+    seq bigint not null,
+    deleted boolean not null,
+    primary key (task_id),
+    constraint fk_task_sync_user foreign key (user_id) references users (id) on delete cascade
+);
+
+create index idx_task_sync_user_seq on task_sync (user_id, seq, task_id);
+
+create table task_sync_counter (
+    user_id bigint not null,
+    seq bigint not null,
+    primary key (user_id),
+    constraint fk_task_sync_counter_user foreign key (user_id) references users (id) on delete cascade
+);
+
+insert into task_sync (task_id, user_id, seq, deleted)
+    select id, owner_id, id, false from task where owner_id is not null;
+
+insert into task_sync_counter (user_id, seq)
+    select owner_id, max(id) from task where owner_id is not null group by owner_id;
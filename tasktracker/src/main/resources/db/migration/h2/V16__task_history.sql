@@ -0,0 +1,17 @@
+-- Same table as db/migration/mysql/V16.
+
+create table task_history (
+    id bigint not null auto_increment,
+    task_id bigint not null,
+    user_id bigint not null,
+    actor_id bigint,
+    action varchar(16) not null,
+    changes clob not null,
+    changed_at timestamp(6) not null,
+    entry_key varchar(36) not null,
+    primary key (id),
+    constraint uk_task_history_entry_key unique (entry_key),
+    constraint fk_task_history_user foreign key (user_id) references users (id) on delete cascade
+);
+
+create index idx_task_history_task_id on task_history (task_id, id);
@@ -0,0 +1,17 @@
+-- Same table as db/migration/mysql/V17.
+
+create table idempotent_request (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    idempotency_key varchar(191) not null,
+    request_hash varchar(64) not null,
+    locked_until bigint not null,
+    response_status integer,
+    response_body clob,
+    expires_at bigint not null,
+    primary key (id),
+    constraint uk_idempotent_request_key unique (user_id, idempotency_key),
+    constraint fk_idempotent_request_user foreign key (user_id) references users (id) on delete cascade
+);
+
+create index idx_idempotent_request_expires_at on idempotent_request (expires_at);
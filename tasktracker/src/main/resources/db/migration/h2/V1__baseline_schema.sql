@@ -0,0 +1,35 @@
+-- Same schema as db/migration/mysql/V1 for the in-memory test database. Hibernate maps
+-- enums to varchar on H2, so the enum columns differ from the MySQL script.
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    password varchar(255),
+    role varchar(255),
+    username varchar(255) not null,
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+create table categories (
+    id bigint not null auto_increment,
+    description varchar(500),
+    name varchar(255) not null,
+    primary key (id)
+);
+
+create table task (
+    id bigint not null auto_increment,
+    title varchar(255) not null,
+    description varchar(255),
+    status varchar(255),
+    priority varchar(255),
+    due_date date,
+    created_at datetime(6),
+    owner_id bigint not null,
+    category_id bigint,
+    primary key (id),
+    constraint fk_task_owner foreign key (owner_id) references users (id),
+    constraint fk_task_category foreign key (category_id) references categories (id)
+);
@@ -0,0 +1,7 @@
+-- Same indexes as db/migration/mysql/V2, without the MySQL online DDL clauses.
+
+create index idx_task_owner_status on task (owner_id, status);
+
+create index idx_task_owner_due_date on task (owner_id, due_date);
+
+create index idx_task_category on task (category_id);
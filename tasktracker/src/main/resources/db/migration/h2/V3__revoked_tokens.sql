@@ -0,0 +1,12 @@
+-- Same table as db/migration/mysql/V3.
+
+create table revoked_token (
+    token_id varchar(64) not null,
+    expires_at bigint not null,
+    revoked_at bigint not null,
+    primary key (token_id)
+);
+
+create index idx_revoked_token_revoked_at on revoked_token (revoked_at);
+
+create index idx_revoked_token_expires_at on revoked_token (expires_at);
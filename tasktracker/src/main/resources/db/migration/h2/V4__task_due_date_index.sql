@@ -0,0 +1,3 @@
+-- Same index as db/migration/mysql/V4, without the MySQL online DDL clauses.
+
+create index idx_task_due_date_status on task (due_date, status);
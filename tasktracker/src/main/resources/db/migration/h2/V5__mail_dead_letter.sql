@@ -0,0 +1,12 @@
+-- Same table as db/migration/mysql/V5.
+
+create table mail_dead_letter (
+    id bigint not null auto_increment,
+    recipient varchar(255) not null,
+    subject varchar(255),
+    body clob,
+    attempts integer not null,
+    last_error varchar(1000),
+    failed_at timestamp(6) not null,
+    primary key (id)
+);
@@ -0,0 +1,19 @@
+-- Same table as db/migration/mysql/V6.
+
+create table notification_outbox (
+    id bigint not null auto_increment,
+    idempotency_key varchar(191) not null,
+    recipient varchar(255) not null,
+    subject varchar(255),
+    body clob,
+    status varchar(255) not null,
+    attempts integer not null,
+    last_error varchar(1000),
+    created_at timestamp(6) not null,
+    claimed_until timestamp(6),
+    sent_at timestamp(6),
+    primary key (id),
+    constraint uk_outbox_idempotency_key unique (idempotency_key)
+);
+
+create index idx_outbox_status_id on notification_outbox (status, id);
@@ -0,0 +1,9 @@
+-- Same table as db/migration/mysql/V7.
+
+create table scheduler_lock (
+    name varchar(64) not null,
+    locked_by varchar(255) not null,
+    locked_at bigint not null,
+    locked_until bigint not null,
+    primary key (name)
+);
@@ -0,0 +1,21 @@
+-- Same table as db/migration/mysql/V8.
+
+create table job_partition (
+    id bigint not null auto_increment,
+    job varchar(64) not null,
+    period varchar(64) not null,
+    partition_no integer not null,
+    after_owner bigint not null,
+    last_owner bigint not null,
+    checkpoint bigint not null,
+    status varchar(255) not null,
+    attempts integer not null,
+    claimed_by varchar(255),
+    claimed_until bigint not null,
+    created_at bigint not null,
+    finished_at bigint,
+    primary key (id),
+    constraint uk_job_partition unique (job, period, partition_no)
+);
+
+create index idx_job_partition_status_id on job_partition (status, id);
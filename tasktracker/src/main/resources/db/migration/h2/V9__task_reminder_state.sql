@@ -0,0 +1,4 @@
+-- Same columns as db/migration/mysql/V9, without the MySQL online DDL clauses.
+
+alter table task add column reminded_due_date date;
+alter table task add column reminded_at timestamp(6);
@@ -0,0 +1,13 @@
+-- Per-task reminders, one row per offset before the due date. ReminderScheduler loads the next slice of
+-- fire_at into its timing wheel, so the index is the only way the table is read.
+
+create table task_reminder (
+    id bigint not null auto_increment,
+    task_id bigint not null,
+    offset_minutes integer not null,
+    fire_at datetime(6) not null,
+    fired_at datetime(6),
+    primary key (id),
+    constraint fk_task_reminder_task foreign key (task_id) references task (id) on delete cascade,
+    index idx_task_reminder_fire_at (fire_at)
+) engine=InnoDB;
@@ -0,0 +1,6 @@
+-- What each partition of a run got through, added up per run for the job status endpoint
+-- (GET /api/notifications/jobs/{job}/{period}): users handled, mails queued, failed attempts.
+
+alter table job_partition add column users_processed integer not null default 0,
+    add column mails_queued integer not null default 0,
+    add column failures integer not null default 0, algorithm=inplace, lock=none;
@@ -0,0 +1,27 @@
+-- In-app notifications. inbox_notification is read newest first a page at a time (user_id, id); the
+-- idempotency key is the one the mail carries, so a job that runs twice files an entry once.
+-- notification_counter keeps each user's unread count, moved in the transaction that adds or reads
+-- entries, so the bell is one primary key lookup.
+
+create table inbox_notification (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    kind varchar(32) not null,
+    title varchar(255) not null,
+    body text not null,
+    task_id bigint,
+    idempotency_key varchar(191) not null,
+    created_at datetime(6) not null,
+    read_at datetime(6),
+    primary key (id),
+    constraint uk_inbox_notification_key unique (idempotency_key),
+    constraint fk_inbox_notification_user foreign key (user_id) references users (id) on delete cascade,
+    index idx_inbox_notification_user_id (user_id, id)
+) engine=InnoDB;
+
+create table notification_counter (
+    user_id bigint not null,
+    unread integer not null,
+    primary key (user_id),
+    constraint fk_notification_counter_user foreign key (user_id) references users (id) on delete cascade
+) engine=InnoDB;
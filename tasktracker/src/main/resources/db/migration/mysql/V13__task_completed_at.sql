@@ -0,0 +1,4 @@
+-- When a task was last marked done, cleared when it is reopened. Tasks done before this column existed
+-- keep a null.
+
+alter table task add column completed_at datetime(6), algorithm=inplace, lock=none;
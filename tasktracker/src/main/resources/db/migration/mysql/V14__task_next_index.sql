@@ -0,0 +1,6 @@
+-- Backs TaskRepository.findNext (the "what's next" list): one owner's open tasks of one priority, read in
+-- due date order straight off the index and cut off at the limit. Replaces nothing; (owner_id, status)
+-- stays for the status filters, which use it without the extra columns.
+
+alter table task add index idx_task_owner_status_priority_due (owner_id, status, priority, due_date),
+    algorithm=inplace, lock=none;
@@ -0,0 +1,28 @@
+-- Delta sync for offline clients. task_sync holds one row per task ever created: the owner's change
+-- sequence number of its last change, and whether that change deleted it (the row outlives the task as
+-- its tombstone). task_sync_counter hands out each user's sequence numbers; bumping it in the same
+-- transaction as the change keeps one user's numbers in commit order. Existing tasks start out with
+-- their id as their number.
+
+create table task_sync (
+    task_id bigint not null,
+    user_id bigint not null,
+    seq bigint not null,
+    deleted bit not null,
+    primary key (task_id),
+    constraint fk_task_sync_user foreign key (user_id) references users (id) on delete cascade,
+    index idx_task_sync_user_seq (user_id, seq, task_id)
+) engine=InnoDB;
+
+create table task_sync_counter (
+    user_id bigint not null,
+    seq bigint not null,
+    primary key (user_id),
+    constraint fk_task_sync_counter_user foreign key (user_id) references users (id) on delete cascade
+) engine=InnoDB;
+
+insert into task_sync (task_id, user_id, seq, deleted)
+    select id, owner_id, id, false from task where owner_id is not null;
+
+insert into task_sync_counter (user_id, seq)
+    select owner_id, max(id) from task where owner_id is not null group by owner_id;
@@ -0,0 +1,19 @@
+-- Append-only change log of tasks, written in batches by TaskHistoryWriter after the change commits.
+-- changes holds the field diffs as JSON; entry_key lets the writer replay its local journal after a
+-- crash without logging anything twice. Entries outlive their task but go with their user. Read a page
+-- at a time per task, newest first (task_id, id).
+
+create table task_history (
+    id bigint not null auto_increment,
+    task_id bigint not null,
+    user_id bigint not null,
+    actor_id bigint,
+    action varchar(16) not null,
+    changes text not null,
+    changed_at datetime(6) not null,
+    entry_key varchar(36) not null,
+    primary key (id),
+    constraint uk_task_history_entry_key unique (entry_key),
+    constraint fk_task_history_user foreign key (user_id) references users (id) on delete cascade,
+    index idx_task_history_task_id (task_id, id)
+) engine=InnoDB;
@@ -0,0 +1,19 @@
+-- Idempotency-Key requests to /tasks, shared by every node. A row is claimed before the request runs
+-- (insert ignore on user and key); locked_until is the claiming node's lease (epoch millis) while
+-- response_status is null, and the response is stored in the transaction of the change itself.
+-- expires_at (epoch millis) is when the key may be used for a new request; expired rows are purged daily.
+
+create table idempotent_request (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    idempotency_key varchar(191) not null,
+    request_hash varchar(64) not null,
+    locked_until bigint not null,
+    response_status integer,
+    response_body text,
+    expires_at bigint not null,
+    primary key (id),
+    constraint uk_idempotent_request_key unique (user_id, idempotency_key),
+    constraint fk_idempotent_request_user foreign key (user_id) references users (id) on delete cascade,
+    index idx_idempotent_request_expires_at (expires_at)
+) engine=InnoDB;
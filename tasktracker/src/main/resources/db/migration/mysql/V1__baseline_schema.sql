@@ -0,0 +1,35 @@
+-- Baseline schema, matching what ddl-auto=update produced before migrations were introduced.
+-- Existing databases are baselined at this version and skip it (spring.flyway.baseline-on-migrate).
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255),
+    password varchar(255),
+    role enum ('ADMIN','USER'),
+    username varchar(255) not null,
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table categories (
+    id bigint not null auto_increment,
+    description varchar(500),
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table task (
+    id bigint not null auto_increment,
+    title varchar(255) not null,
+    description varchar(255),
+    status enum ('DONE','IN_PROGRESS','OVERDUE','PENDING'),
+    priority enum ('CRITICAL','HIGH','LOW','MEDIUM'),
+    due_date date,
+    created_at datetime(6),
+    owner_id bigint not null,
+    category_id bigint,
+    primary key (id),
+    constraint fk_task_owner foreign key (owner_id) references users (id),
+    constraint fk_task_category foreign key (category_id) references categories (id)
+) engine=InnoDB;
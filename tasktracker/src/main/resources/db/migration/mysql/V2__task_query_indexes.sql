@@ -0,0 +1,12 @@
+-- Indexes backing the TaskRepository finders:
+--   findByOwnerAndStatus           -> (owner_id, status)
+--   findByOwnerAndDueDateBetween   -> (owner_id, due_date)
+--   countByCategory / category FK  -> (category_id)
+-- ALGORITHM=INPLACE, LOCK=NONE keeps the table readable and writable while each index builds;
+-- MySQL refuses the statement instead of silently falling back to a locking table copy.
+
+alter table task add index idx_task_owner_status (owner_id, status), algorithm=inplace, lock=none;
+
+alter table task add index idx_task_owner_due_date (owner_id, due_date), algorithm=inplace, lock=none;
+
+alter table task add index idx_task_category (category_id), algorithm=inplace, lock=none;
@@ -0,0 +1,11 @@
+-- Exact store behind the in-memory token denylist. Only consulted when the Bloom filter reports a hit;
+-- instances also poll revoked_at to learn about revocations made elsewhere. Times are epoch millis.
+
+create table revoked_token (
+    token_id varchar(64) not null,
+    expires_at bigint not null,
+    revoked_at bigint not null,
+    primary key (token_id),
+    index idx_revoked_token_revoked_at (revoked_at),
+    index idx_revoked_token_expires_at (expires_at)
+) engine=InnoDB;
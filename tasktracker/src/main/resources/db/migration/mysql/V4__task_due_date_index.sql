@@ -0,0 +1,3 @@
+-- The hourly due-soon and overdue scans select by due date across all users (TaskRepository.streamOpenTasksDue*).
+
+alter table task add index idx_task_due_date_status (due_date, status), algorithm=inplace, lock=none;
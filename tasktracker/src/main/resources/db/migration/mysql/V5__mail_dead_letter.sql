@@ -0,0 +1,12 @@
+-- Mail that could not be delivered after all retries (MailDispatcher), kept for inspection and resending.
+
+create table mail_dead_letter (
+    id bigint not null auto_increment,
+    recipient varchar(255) not null,
+    subject varchar(255),
+    body text,
+    attempts integer not null,
+    last_error varchar(1000),
+    failed_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
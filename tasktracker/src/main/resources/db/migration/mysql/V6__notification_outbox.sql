@@ -0,0 +1,20 @@
+-- Transactional outbox for notification mail. Rows are written in the same transaction as the change
+-- that triggers them and delivered by OutboxRelay; the idempotency key makes a second write of the same
+-- notification a no-op (insert ignore), and status + claimed_until drive the relay's claim query.
+
+create table notification_outbox (
+    id bigint not null auto_increment,
+    idempotency_key varchar(191) not null,
+    recipient varchar(255) not null,
+    subject varchar(255),
+    body text,
+    status enum ('FAILED','PENDING','SENT') not null,
+    attempts integer not null,
+    last_error varchar(1000),
+    created_at datetime(6) not null,
+    claimed_until datetime(6),
+    sent_at datetime(6),
+    primary key (id),
+    constraint uk_outbox_idempotency_key unique (idempotency_key),
+    index idx_outbox_status_id (status, id)
+) engine=InnoDB;
@@ -0,0 +1,10 @@
+-- One row per scheduled job; the instance whose lease (locked_until, epoch millis) is current runs it.
+-- Rows are created on first use by DatabaseJobLock.
+
+create table scheduler_lock (
+    name varchar(64) not null,
+    locked_by varchar(255) not null,
+    locked_at bigint not null,
+    locked_until bigint not null,
+    primary key (name)
+) engine=InnoDB;
@@ -0,0 +1,22 @@
+-- Owner id ranges of a partitioned job run (PartitionedJobs). Any instance's workers claim a pending
+-- range (claimed_by / claimed_until, epoch millis) and move checkpoint forward as they go, so a range
+-- interrupted by a crash is picked up again from its last checkpoint.
+
+create table job_partition (
+    id bigint not null auto_increment,
+    job varchar(64) not null,
+    period varchar(64) not null,
+    partition_no integer not null,
+    after_owner bigint not null,
+    last_owner bigint not null,
+    checkpoint bigint not null,
+    status enum ('DONE','FAILED','PENDING') not null,
+    attempts integer not null,
+    claimed_by varchar(255),
+    claimed_until bigint not null,
+    created_at bigint not null,
+    finished_at bigint,
+    primary key (id),
+    constraint uk_job_partition unique (job, period, partition_no),
+    index idx_job_partition_status_id (status, id)
+) engine=InnoDB;
@@ -0,0 +1,4 @@
+-- Which due date the last due-soon reminder covered, so the hourly scan skips tasks it already reminded
+-- about (TaskRepository.streamUnremindedTasksDueBetween); a changed due date is reminded about again.
+
+alter table task add column reminded_due_date date, add column reminded_at datetime(6), algorithm=inplace, lock=none;
@@ -0,0 +1,32 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+    @Test
+    void everyAddedKeyIsFoundAndFalsePositivesStayNearTheTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String id = UUID.randomUUID().toString();
+            filter.put(id);
+            added.add(id);
+        }
+        assertThat(added).allMatch(filter::mightContain);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).as("false positives in 100k lookups").isLessThan(2_000);
+    }
+}
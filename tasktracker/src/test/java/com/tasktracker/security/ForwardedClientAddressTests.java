@@ -0,0 +1,46 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+// a real server, as the forwarded address is resolved by Tomcat before the request reaches Spring
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "tasktracker.security.login-throttle.ip.capacity=2",
+        "tasktracker.security.login-throttle.ip.refill-per-minute=1" })
+class ForwardedClientAddressTests {
+
+    @LocalServerPort
+    private int port;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void loginsThroughTheGatewayAreThrottledPerClient() throws Exception {
+        assertThat(login("nobody-1", "203.0.113.7")).isEqualTo(401);
+        assertThat(login("nobody-2", "203.0.113.7")).isEqualTo(401);
+        assertThat(login("nobody-3", "203.0.113.7")).isEqualTo(429);
+
+        // another client behind the same gateway has a bucket of its own
+        assertThat(login("nobody-4", "203.0.113.8")).isEqualTo(401);
+        // and so has a spoofed address in front of the one the gateway appended
+        assertThat(login("nobody-5", "203.0.113.7, 198.51.100.9")).isEqualTo(401);
+    }
+
+    // the JDK client, as the pooled one TestRestTemplate picks up would wait out Retry-After and retry the 429
+    private int login(String username, String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\": \"" + username + "\", \"password\": \"wrong\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
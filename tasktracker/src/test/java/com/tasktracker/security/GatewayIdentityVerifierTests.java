@@ -0,0 +1,72 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.gatewayidentity.IdentityHeaders;
+
+class GatewayIdentityVerifierTests {
+
+    private final GatewayIdentityVerifier verifier = new GatewayIdentityVerifier("gateway-secret", 300);
+
+    @Test
+    void signedHeadersYieldTheIdentity() {
+        MockHttpServletRequest request = forwarded(verifier, "7", "alice", "USER", now());
+
+        assertThat(verifier.verify(request)).hasValueSatisfying(identity -> {
+            assertThat(identity.userId()).isEqualTo(7L);
+            assertThat(identity.username()).isEqualTo("alice");
+            assertThat(identity.roles()).isEqualTo(List.of("USER"));
+            assertThat(identity.tokenId()).isEqualTo("jti-1");
+        });
+    }
+
+    @Test
+    void forgedOrStaleHeadersAreRejected() {
+        MockHttpServletRequest tampered = forwarded(verifier, "7", "alice", "USER", now());
+        tampered.removeHeader(IdentityHeaders.USER_ID);
+        tampered.addHeader(IdentityHeaders.USER_ID, "8");
+        assertThat(verifier.verify(tampered)).isEmpty();
+
+        // the token id is signed too, so a revoked token can't be passed off under another id
+        MockHttpServletRequest otherToken = forwarded(verifier, "7", "alice", "USER", now());
+        otherToken.removeHeader(IdentityHeaders.TOKEN_ID);
+        otherToken.addHeader(IdentityHeaders.TOKEN_ID, "jti-2");
+        assertThat(verifier.verify(otherToken)).isEmpty();
+
+        GatewayIdentityVerifier otherSecret = new GatewayIdentityVerifier("not-the-gateway", 300);
+        assertThat(verifier.verify(forwarded(otherSecret, "7", "alice", "USER", now()))).isEmpty();
+
+        assertThat(verifier.verify(forwarded(verifier, "7", "alice", "USER", now() - 600))).isEmpty();
+    }
+
+    @Test
+    void headersAreIgnoredWithoutASecret() {
+        GatewayIdentityVerifier disabled = new GatewayIdentityVerifier("", 300);
+        MockHttpServletRequest request = forwarded(verifier, "7", "alice", "USER", now());
+
+        assertThat(disabled.isPresent(request)).isFalse();
+        assertThat(disabled.verify(request)).isEmpty();
+    }
+
+    private static MockHttpServletRequest forwarded(GatewayIdentityVerifier signer, String userId, String username,
+            String roles, long timestamp) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks");
+        request.addHeader(IdentityHeaders.USER_ID, userId);
+        request.addHeader(IdentityHeaders.USERNAME, username);
+        request.addHeader(IdentityHeaders.ROLES, roles);
+        request.addHeader(IdentityHeaders.TOKEN_ID, "jti-1");
+        request.addHeader(IdentityHeaders.TOKEN_EXPIRES, String.valueOf(timestamp + 900));
+        request.addHeader(IdentityHeaders.TIMESTAMP, String.valueOf(timestamp));
+        request.addHeader(IdentityHeaders.SIGNATURE, signer.sign(request::getHeader));
+        return request;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
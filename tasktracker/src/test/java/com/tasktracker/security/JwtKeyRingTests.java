@@ -0,0 +1,146 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.KeyGenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+class JwtKeyRingTests {
+
+    private static final String PASSWORD = "secret";
+    private static final AuthenticatedUser USER = new AuthenticatedUser(7L, "alice", "",
+            List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    private static final StandardEnvironment DEV = new StandardEnvironment();
+
+    static {
+        DEV.setActiveProfiles("dev");
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tokensFromAnotherNodeSharingTheKeystoreVerify() throws Exception {
+        Path store = writeKeyStore("k1");
+        JwtUtil nodeA = new JwtUtil(new JwtKeyRing(store.toString(), PASSWORD, "k1", "", 0, DEV), 0);
+        JwtUtil nodeB = new JwtUtil(new JwtKeyRing(store.toString(), PASSWORD, "k1", "", 0, DEV), 0);
+
+        assertThat(nodeB.verify(nodeA.generateToken(USER)))
+                .hasValueSatisfying(token -> assertThat(token.userId()).isEqualTo(7L));
+    }
+
+    @Test
+    void rotationKeepsOldTokensUntilTheirKeyIsRemoved() throws Exception {
+        Path store = writeKeyStore("k1");
+        // reloads every 250 ms, so a new key signs once it is 500 ms old
+        JwtKeyRing keyRing = new JwtKeyRing(store.toString(), PASSWORD, "", "", 250, DEV);
+        JwtUtil jwt = new JwtUtil(keyRing, 16);
+        String oldToken = jwt.generateToken(USER);
+        Thread.sleep(600);
+
+        // k2 is added; k1 keeps signing until every node has had the time to load k2
+        writeKeyStore("k1", "k2");
+        touch(store, 1);
+        keyRing.reloadIfChanged();
+        assertThat(keyRing.signingKeyId()).isEqualTo("k1");
+        Thread.sleep(600);
+        assertThat(keyRing.signingKeyId()).isEqualTo("k2");
+        assertThat(jwt.verify(oldToken)).isPresent();
+        String newToken = jwt.generateToken(USER);
+
+        // k1 rotated out; even the cached result is rejected
+        writeKeyStore("k2");
+        touch(store, 2);
+        keyRing.reloadIfChanged();
+        assertThat(jwt.verify(oldToken)).isEmpty();
+        assertThat(jwt.verify(newToken)).isPresent();
+    }
+
+    @Test
+    void localStandInSurvivesRestart() throws Exception {
+        Path local = dir.resolve("local.p12");
+        String token = new JwtUtil(new JwtKeyRing("", "", "", local.toString(), 0, DEV), 0).generateToken(USER);
+
+        assertThat(new JwtUtil(new JwtKeyRing("", "", "", local.toString(), 0, DEV), 0).verify(token)).isPresent();
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(local))).isEqualTo("rw-------");
+    }
+
+    @Test
+    void nodesStartingTogetherShareOneLocalKey() throws Exception {
+        String localPath = dir.resolve("local.p12").toString();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<JwtKeyRing>> nodes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                nodes.add(pool.submit(() -> new JwtKeyRing("", "", "", localPath, 0, DEV)));
+            }
+            String token = new JwtUtil(nodes.get(0).get(), 0).generateToken(USER);
+            for (Future<JwtKeyRing> node : nodes) {
+                assertThat(new JwtUtil(node.get(), 0).verify(token)).isPresent();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(dir.resolve("local.p12"));
+        }
+    }
+
+    @Test
+    void localStandInIsRefusedOutsideDev() {
+        assertThatThrownBy(() -> new JwtKeyRing("", "", "", dir.resolve("local.p12").toString(), 0,
+                new StandardEnvironment()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JWT_KEYSTORE_PATH");
+        assertThat(dir.resolve("local.p12")).doesNotExist();
+    }
+
+    // every alias gets a fresh key unless it was already in the store
+    private Path writeKeyStore(String... aliases) throws Exception {
+        Path path = dir.resolve("jwt.p12");
+        KeyStore previous = null;
+        if (Files.exists(path)) {
+            previous = KeyStore.getInstance("PKCS12");
+            try (var in = Files.newInputStream(path)) {
+                previous.load(in, PASSWORD.toCharArray());
+            }
+        }
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        store.load(null, null);
+        KeyGenerator generator = KeyGenerator.getInstance("HmacSHA256");
+        generator.init(256);
+        for (String alias : aliases) {
+            KeyStore.Entry entry = previous != null && previous.containsAlias(alias)
+                    ? previous.getEntry(alias, new KeyStore.PasswordProtection(PASSWORD.toCharArray()))
+                    : new KeyStore.SecretKeyEntry(generator.generateKey());
+            store.setEntry(alias, entry, new KeyStore.PasswordProtection(PASSWORD.toCharArray()));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            store.store(out, PASSWORD.toCharArray());
+        }
+        return path;
+    }
+
+    // file systems with coarse timestamps could otherwise hide the rewrite from the reload check
+    private void touch(Path path, int seconds) throws Exception {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + seconds * 1000L));
+    }
+}
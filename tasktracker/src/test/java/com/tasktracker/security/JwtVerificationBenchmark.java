@@ -0,0 +1,99 @@
+package com.tasktracker.security;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request cost of token validation in the JWT filter.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) com.tasktracker.security.JwtVerificationBenchmark
+ * </pre>
+ *
+ * {@code legacyTripleParse} replays the old filter: it parsed the token once for the username, then
+ * twice more to validate it, each time with a freshly built parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private Key legacyKey;
+    private String legacyToken;
+
+    private JwtUtil uncached;
+    private String uncachedToken;
+    private JwtUtil cached;
+    private String cachedToken;
+
+    @Setup
+    public void setUp() {
+        AuthenticatedUser user = new AuthenticatedUser(42L, "bench-user", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        legacyKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        legacyToken = Jwts.builder()
+                .setSubject(user.getUsername())
+                .claim("uid", user.getId())
+                .claim("roles", List.of("USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86400000))
+                .signWith(legacyKey)
+                .compact();
+
+        JwtKeyRing keyRing = new JwtKeyRing("bench-1", Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        uncached = new JwtUtil(keyRing, 0);
+        uncachedToken = uncached.generateToken(user);
+        cached = new JwtUtil(keyRing, 1024);
+        cachedToken = cached.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String username = Jwts.parserBuilder().setSigningKey(legacyKey).build()
+                .parseClaimsJws(legacyToken).getBody().getSubject();
+        String again = Jwts.parserBuilder().setSigningKey(legacyKey).build()
+                .parseClaimsJws(legacyToken).getBody().getSubject();
+        Date expiration = Jwts.parserBuilder().setSigningKey(legacyKey).build()
+                .parseClaimsJws(legacyToken).getBody().getExpiration();
+        return again.equals(username) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public VerifiedToken singleParse() {
+        return uncached.verify(uncachedToken).orElseThrow();
+    }
+
+    @Benchmark
+    public VerifiedToken singleParseCached() {
+        return cached.verify(cachedToken).orElseThrow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginAdmissionTests {
+
+    @Test
+    void hashingBeyondThePoolAndQueueIsShed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, 5000, meters);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            started.await(5, TimeUnit.SECONDS);
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (meters.get("tasktracker.password.hashing.queue").gauge().value() < 1) {
+                Thread.sleep(5);
+            }
+
+            assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(meters.get("tasktracker.password.hashing.rejected").tag("reason", "queue_full").counter().count())
+                    .isEqualTo(1);
+
+            release.countDown();
+            String hashA = running.get(5, TimeUnit.SECONDS);
+            String hashB = queued.get(5, TimeUnit.SECONDS);
+            assertThat(encoder.matches("a", hashA)).isTrue();
+            assertThat(encoder.matches("b", hashB)).isTrue();
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void cheaperHashesAreFlaggedForUpgrade() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(6), 1, 1, 5000,
+                new SimpleMeterRegistry());
+        try {
+            assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+            assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void throttleLimitsEachUsernameAndAddress() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), 2, 1, 3, 1, 100);
+
+        assertThat(throttle.tryAcquire("alice", "10.0.0.1")).isTrue();
+        assertThat(throttle.tryAcquire("Alice", "10.0.0.2")).isTrue();
+        assertThat(throttle.tryAcquire("alice", "10.0.0.3")).as("third attempt for alice").isFalse();
+
+        assertThat(throttle.tryAcquire("bob", "10.0.0.1")).isTrue();
+        assertThat(throttle.tryAcquire("carol", "10.0.0.1")).isTrue();
+        assertThat(throttle.tryAcquire("dave", "10.0.0.1")).as("fourth attempt from 10.0.0.1").isFalse();
+    }
+}
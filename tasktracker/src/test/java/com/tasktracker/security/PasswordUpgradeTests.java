@@ -0,0 +1,47 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.repo.AppUserRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PasswordUpgradeTests {
+
+    private static final String USERNAME = "upgrade-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper json;
+    @Autowired
+    private AppUserRepository users;
+
+    @Test
+    void loginRehashesPasswordsStoredWithALowerCost() throws Exception {
+        users.findByUsername(USERNAME).ifPresent(users::delete);
+        users.save(new AppUser(USERNAME, new BCryptPasswordEncoder(4).encode("secret"), "upgrade@example.com"));
+
+        mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content(json.writeValueAsString(Map.of("username", USERNAME, "password", "secret"))))
+                .andExpect(status().isOk());
+
+        String stored = users.findByUsername(USERNAME).orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", stored)).isTrue();
+    }
+}
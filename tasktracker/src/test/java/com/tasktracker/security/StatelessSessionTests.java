@@ -0,0 +1,92 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.repo.AppUserRepository;
+
+import jakarta.servlet.http.Cookie;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StatelessSessionTests {
+
+    private static final String USERNAME = "cookie-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @BeforeEach
+    void seed() {
+        if (!users.existsByUsername(USERNAME)) {
+            users.save(new AppUser(USERNAME, encoder.encode("secret"), "cookie@example.com"));
+        }
+    }
+
+    @Test
+    void formLoginSetsCookiesInsteadOfASession() throws Exception {
+        MvcResult login = mvc.perform(post("/login").param("username", USERNAME).param("password", "secret"))
+                .andExpect(redirectedUrl("/"))
+                .andReturn();
+        assertThat(login.getRequest().getSession(false)).isNull();
+        Cookie access = httpOnlyCookie(login.getResponse(), AuthCookies.ACCESS_COOKIE);
+        httpOnlyCookie(login.getResponse(), AuthCookies.REFRESH_COOKIE);
+
+        MvcResult page = mvc.perform(get("/pages/tasks").cookie(access)).andExpect(status().isOk()).andReturn();
+        assertThat(page.getRequest().getSession(false)).isNull();
+
+        mvc.perform(get("/pages/tasks")).andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    void expiredAccessCookieIsRenewedFromTheRefreshCookie() throws Exception {
+        MockHttpServletResponse login = mvc.perform(post("/login").param("username", USERNAME)
+                .param("password", "secret")).andReturn().getResponse();
+        Cookie refresh = login.getCookie(AuthCookies.REFRESH_COOKIE);
+
+        MvcResult page = mvc.perform(get("/pages/tasks").cookie(refresh)).andExpect(status().isOk()).andReturn();
+        httpOnlyCookie(page.getResponse(), AuthCookies.ACCESS_COOKIE);
+    }
+
+    @Test
+    void logoutRevokesTheCookies() throws Exception {
+        MockHttpServletResponse login = mvc.perform(post("/login").param("username", USERNAME)
+                .param("password", "secret")).andReturn().getResponse();
+        Cookie access = login.getCookie(AuthCookies.ACCESS_COOKIE);
+        Cookie refresh = login.getCookie(AuthCookies.REFRESH_COOKIE);
+
+        MockHttpServletResponse logout = mvc.perform(post("/logout").cookie(access, refresh))
+                .andExpect(redirectedUrl("/login?logout"))
+                .andReturn().getResponse();
+        assertThat(logout.getCookie(AuthCookies.ACCESS_COOKIE).getMaxAge()).isZero();
+
+        // copies kept by the browser or an attacker no longer work
+        mvc.perform(get("/pages/tasks").cookie(access, refresh)).andExpect(status().is3xxRedirection());
+    }
+
+    private static Cookie httpOnlyCookie(MockHttpServletResponse response, String name) {
+        Cookie cookie = response.getCookie(name);
+        assertThat(cookie).as(name).isNotNull();
+        assertThat(cookie.isHttpOnly()).as("%s is HttpOnly", name).isTrue();
+        assertThat(cookie.getValue()).isNotEmpty();
+        return cookie;
+    }
+}
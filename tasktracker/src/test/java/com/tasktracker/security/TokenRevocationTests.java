@@ -0,0 +1,124 @@
+package com.tasktracker.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gatewayidentity.IdentityHeaders;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.repo.AppUserRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenRevocationTests {
+
+    private static final String USERNAME = "revocation-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper json;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PasswordEncoder encoder;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private GatewayIdentityVerifier gatewayIdentity;
+
+    @BeforeEach
+    void seed() {
+        if (!users.existsByUsername(USERNAME)) {
+            users.save(new AppUser(USERNAME, encoder.encode("secret"), "revocation@example.com"));
+        }
+    }
+
+    @Test
+    void logoutRevokesBothTokens() throws Exception {
+        Map<?, ?> tokens = login();
+        String access = (String) tokens.get("token");
+        mvc.perform(get("/tasks").header("Authorization", "Bearer " + access)).andExpect(status().isOk());
+
+        mvc.perform(post("/auth/logout").header("Authorization", "Bearer " + access)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json.writeValueAsString(Map.of("refreshToken", tokens.get("refreshToken")))))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(get("/tasks").header("Authorization", "Bearer " + access)).andExpect(status().is3xxRedirection());
+        refresh((String) tokens.get("refreshToken")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshTokensAreSingleUseAndNotAccessTokens() throws Exception {
+        String refreshToken = (String) login().get("refreshToken");
+        mvc.perform(get("/tasks").header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().is3xxRedirection());
+
+        Map<?, ?> renewed = json.readValue(refresh(refreshToken).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), Map.class);
+        assertThat(renewed.get("refreshToken")).isNotEqualTo(refreshToken);
+        mvc.perform(get("/tasks").header("Authorization", "Bearer " + renewed.get("token")))
+                .andExpect(status().isOk());
+
+        // replaying the old refresh token fails
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutThroughTheGatewayRevokesTheForwardedToken() throws Exception {
+        VerifiedToken access = jwtUtil.verify((String) login().get("token")).orElseThrow();
+        mvc.perform(get("/tasks").with(forwardedBy(access))).andExpect(status().isOk());
+
+        mvc.perform(post("/auth/logout").with(forwardedBy(access))).andExpect(status().isNoContent());
+
+        // the gateway doesn't check revocation; the forwarded token id is refused here
+        mvc.perform(get("/tasks").with(forwardedBy(access))).andExpect(status().is3xxRedirection());
+    }
+
+    // the signed identity headers the gateway sends in place of the token
+    private RequestPostProcessor forwardedBy(VerifiedToken token) {
+        return request -> {
+            String userId = String.valueOf(token.userId());
+            String roles = String.join(",", token.roles());
+            String expires = String.valueOf(token.expiresAt().getTime() / 1000);
+            String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+            request.addHeader(IdentityHeaders.USER_ID, userId);
+            request.addHeader(IdentityHeaders.USERNAME, token.username());
+            request.addHeader(IdentityHeaders.ROLES, roles);
+            request.addHeader(IdentityHeaders.TOKEN_ID, token.tokenId());
+            request.addHeader(IdentityHeaders.TOKEN_EXPIRES, expires);
+            request.addHeader(IdentityHeaders.TIMESTAMP, timestamp);
+            request.addHeader(IdentityHeaders.SIGNATURE, gatewayIdentity.sign(request::getHeader));
+            return request;
+        };
+    }
+
+    private Map<?, ?> login() throws Exception {
+        String body = mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content(json.writeValueAsString(Map.of("username", USERNAME, "password", "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return json.readValue(body, Map.class);
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mvc.perform(post("/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+                .content(json.writeValueAsString(Map.of("refreshToken", refreshToken))));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.InboxNotification;
+import com.tasktracker.model.Task;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskRepository;
+
+@SpringBootTest
+class InboxServiceTests {
+
+    @Autowired
+    private InboxService inbox;
+    @Autowired
+    private NotificationService notifications;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AppUser owner;
+    private AppUser other;
+
+    @BeforeEach
+    void seed() {
+        owner = users.save(new AppUser("inbox-user", "{noop}secret", "inbox@example.com"));
+        other = users.save(new AppUser("inbox-other", "{noop}secret", "inbox-other@example.com"));
+    }
+
+    @AfterEach
+    void clear() {
+        tasks.deleteAll(tasks.findByOwner(owner));
+        // entries and counters go with their user
+        users.delete(owner);
+        users.delete(other);
+    }
+
+    @Test
+    void counterFollowsFilingAndReading() {
+        file(owner, "a");
+        file(owner, "a"); // the same notification again
+        file(owner, "b");
+        file(owner, "c");
+        file(other, "d");
+        assertThat(inbox.unreadCount(owner.getId())).isEqualTo(3);
+
+        List<InboxNotification> first = inbox.page(owner.getId(), null, 2);
+        List<InboxNotification> second = inbox.page(owner.getId(), first.get(1).getId(), 2);
+        assertThat(first).extracting(InboxNotification::getTitle).containsExactly("c", "b");
+        assertThat(second).extracting(InboxNotification::getTitle).containsExactly("a");
+
+        // someone else's entry is not ours to read
+        Long othersEntry = inbox.page(other.getId(), null, 1).get(0).getId();
+        assertThat(inbox.markRead(owner.getId(), List.of(first.get(0).getId(), othersEntry))).isEqualTo(1);
+        assertThat(inbox.unreadCount(owner.getId())).isEqualTo(2);
+        assertThat(inbox.unreadCount(other.getId())).isEqualTo(1);
+
+        assertThat(inbox.markAllRead(owner.getId(), first.get(0).getId())).isEqualTo(2);
+        assertThat(inbox.markAllRead(owner.getId(), first.get(0).getId())).isZero();
+        assertThat(inbox.unreadCount(owner.getId())).isZero();
+    }
+
+    @Test
+    void jobsFileOneEntryPerNotification() {
+        Task task = new Task();
+        task.setTitle("Pay the invoice");
+        task.setOwner(owner);
+        task.setDueDate(LocalDate.now().minusDays(1));
+        task = tasks.save(task);
+
+        notifications.sendOverdueNotifications(LocalDate.now(), owner.getId() - 1, owner.getId(), 10);
+        notifications.sendOverdueNotifications(LocalDate.now(), owner.getId() - 1, owner.getId(), 10);
+
+        List<InboxNotification> entries = inbox.page(owner.getId(), null, 10);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getKind()).isEqualTo("overdue");
+        assertThat(entries.get(0).getTaskId()).isEqualTo(task.getId());
+        assertThat(entries.get(0).getBody()).contains("Pay the invoice");
+        assertThat(inbox.unreadCount(owner.getId())).isEqualTo(1);
+    }
+
+    private void file(AppUser user, String title) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                inbox.file(user.getId(), "test", title, "body of " + title, null, "test:" + user.getId() + ":" + title));
+    }
+}
@@ -0,0 +1,81 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.tasktracker.model.MailDeadLetter;
+import com.tasktracker.repo.MailDeadLetterRepository;
+
+class MailDispatcherTests {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final MailDeadLetterRepository deadLetters = mock(MailDeadLetterRepository.class);
+
+    @Test
+    void queuedMailIsDeliveredInTheBackground() throws Exception {
+        MailDispatcher dispatcher = dispatcher(smtp.getSmtp().getPort(), 5);
+        try {
+            for (int i = 0; i < 12; i++) {
+                assertThat(dispatcher.send("user" + i + "@example.com", "Reminder " + i, "body " + i)).isTrue();
+            }
+            assertThat(smtp.waitForIncomingEmail(10_000, 12)).isTrue();
+            assertThat(smtp.getReceivedMessages()[0].getSubject()).startsWith("Reminder");
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void undeliverableMailIsRetriedThenDeadLettered() throws Exception {
+        // nothing listens on this port, so every attempt fails to connect
+        MailDispatcher dispatcher = dispatcher(smtp.getSmtp().getPort() + 1, 3);
+        try {
+            dispatcher.send("someone@example.com", "Lost", "body");
+
+            ArgumentCaptor<MailDeadLetter> deadLetter = ArgumentCaptor.forClass(MailDeadLetter.class);
+            verify(deadLetters, timeout(10_000)).save(deadLetter.capture());
+            assertThat(deadLetter.getValue().getRecipient()).isEqualTo("someone@example.com");
+            assertThat(deadLetter.getValue().getAttempts()).isEqualTo(3);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void withoutAMailServerNothingIsSent() throws Exception {
+        MailDispatcher dispatcher = new MailDispatcher(new StaticListableBeanFactory().getBeanProvider(JavaMailSender.class),
+                deadLetters, 10, 1, 5, 100, 3, 10);
+        try {
+            assertThat(dispatcher.isEnabled()).isFalse();
+            dispatcher.send("someone@example.com", "Nowhere", "body");
+            verify(deadLetters, timeout(5_000)).save(any());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private MailDispatcher dispatcher(int port, int maxAttempts) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("mailSender", sender));
+        return new MailDispatcher(beans.getBeanProvider(JavaMailSender.class), deadLetters, 100, 2, 5, 1000,
+                maxAttempts, 10);
+    }
+}
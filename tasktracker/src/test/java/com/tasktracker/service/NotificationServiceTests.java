@@ -0,0 +1,97 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.OutboxMessage;
+import com.tasktracker.model.Task;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.NotificationOutboxRepository;
+import com.tasktracker.repo.TaskRepository;
+
+@SpringBootTest
+class NotificationServiceTests {
+
+    private static final String EMAIL = "reminders@example.com";
+
+    @Autowired
+    private NotificationService notifications;
+    @Autowired
+    private NotificationOutboxRepository outbox;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+
+    private AppUser owner;
+    private Task task;
+
+    @BeforeEach
+    void seed() {
+        outbox.deleteAll();
+        owner = users.save(new AppUser("reminder-user", "{noop}secret", EMAIL));
+        task = new Task();
+        task.setTitle("File the report");
+        task.setOwner(owner);
+        task.setDueDate(LocalDate.now().plusDays(1));
+        task = tasks.save(task);
+    }
+
+    @AfterEach
+    void clear() {
+        tasks.delete(task);
+        users.delete(owner);
+    }
+
+    @Test
+    void dueSoonRemindsOncePerDueDate() {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        notifyDueSoon(hour);
+        assertThat(reminders()).hasSize(1);
+        assertThat(tasks.findById(task.getId()).orElseThrow().getRemindedDueDate()).isEqualTo(task.getDueDate());
+
+        // the next hourly runs have nothing new to say
+        notifyDueSoon(hour.plusHours(1));
+        notifyDueSoon(hour.plusHours(2));
+        assertThat(reminders()).hasSize(1);
+
+        // a moved due date is news again
+        task.setDueDate(LocalDate.now());
+        task = tasks.save(task);
+        notifyDueSoon(hour.plusHours(3));
+        assertThat(reminders()).hasSize(2);
+    }
+
+    @Test
+    void editOverlappingTheScanKeepsTheReminderMarker() {
+        // loaded before the scan, saved after it: an edit that was in flight while the scan ran
+        Task editing = tasks.findById(task.getId()).orElseThrow();
+        notifyDueSoon(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+        editing.setTitle("File the quarterly report");
+        tasks.save(editing);
+
+        assertThat(tasks.findById(task.getId()).orElseThrow().getRemindedDueDate()).isEqualTo(task.getDueDate());
+        notifyDueSoon(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1));
+        assertThat(reminders()).hasSize(1);
+    }
+
+    private void notifyDueSoon(LocalDateTime hour) {
+        notifications.notifyDueSoon(hour, 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    private List<OutboxMessage> reminders() {
+        return outbox.findAll().stream().filter(message -> message.getRecipient().equals(EMAIL)).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.tasktracker.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tasktracker.model.Priority;
+
+/**
+ * Cost of one overdue alert body, measured over a run of 100k messages of three tasks each.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) com.tasktracker.service.NotificationTemplateBenchmark
+ * </pre>
+ *
+ * Scores are per message. Pass {@code -prof gc} (or run {@link #main} with it added) for the bytes
+ * allocated per message ({@code gc.alloc.rate.norm}). {@code inlineBuilder} replays the old
+ * NotificationService, which concatenated each body into a fresh StringBuilder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTemplateBenchmark {
+
+    private static final int MESSAGES = 100_000;
+
+    private NotificationTemplates templates;
+    private final LocalDate today = LocalDate.now();
+    private final List<String> titles = List.of("File taxes", "Renew the certificate", "Book the venue");
+    private final List<LocalDate> dueDates = List.of(today.minusDays(1), today.minusDays(4), today.minusDays(9));
+
+    @Setup
+    public void setUp() {
+        templates = new NotificationTemplates("classpath:mail/");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void inlineBuilder(Blackhole sink) {
+        for (int m = 0; m < MESSAGES; m++) {
+            StringBuilder body = new StringBuilder("⚠️ OVERDUE TASKS ALERT!\n\n");
+            body.append("You have ").append(titles.size()).append(" overdue task(s):\n\n");
+            for (int i = 0; i < titles.size(); i++) {
+                long daysOverdue = ChronoUnit.DAYS.between(dueDates.get(i), today);
+                body.append("📝 ").append(titles.get(i))
+                    .append("\n   Due: ").append(dueDates.get(i))
+                    .append(" (").append(daysOverdue).append(" days overdue)")
+                    .append("\n   Priority: ").append(Priority.HIGH)
+                    .append("\n\n");
+            }
+            body.append("Please complete these tasks as soon as possible!\n");
+            body.append("\nLogin to TaskTracker: http://localhost:8080\n");
+            sink.consume(body.toString());
+        }
+    }
+
+    // what NotificationService does per user: build the model, render into the pooled buffer
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void precompiledTemplate(Blackhole sink) {
+        for (int m = 0; m < MESSAGES; m++) {
+            List<Map<String, Object>> items = new ArrayList<>(titles.size());
+            for (int i = 0; i < titles.size(); i++) {
+                Map<String, Object> item = new HashMap<>(8);
+                item.put("title", titles.get(i));
+                item.put("dueDate", dueDates.get(i));
+                item.put("daysOverdue", ChronoUnit.DAYS.between(dueDates.get(i), today));
+                item.put("priority", Priority.HIGH);
+                items.add(item);
+            }
+            Map<String, Object> model = new HashMap<>(4);
+            model.put("count", titles.size());
+            model.put("tasks", items);
+            sink.consume(templates.text("overdue", Locale.ROOT, model));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(NotificationTemplateBenchmark.class.getSimpleName())
+                .addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class NotificationTemplatesTests {
+
+    @Test
+    void shippedTemplatesRenderTheMailBodies() {
+        NotificationTemplates templates = new NotificationTemplates("classpath:mail/");
+
+        String body = templates.text("overdue", Locale.ROOT, Map.of("count", 1, "tasks", List.of(
+                Map.of("title", "File taxes", "dueDate", "2024-04-15", "daysOverdue", 3L, "priority", "HIGH"))));
+
+        assertThat(body).isEqualTo("⚠️ OVERDUE TASKS ALERT!\n\n"
+                + "You have 1 overdue task(s):\n\n"
+                + "📝 File taxes\n   Due: 2024-04-15 (3 days overdue)\n   Priority: HIGH\n\n"
+                + "Please complete these tasks as soon as possible!\n"
+                + "\nLogin to TaskTracker: http://localhost:8080\n");
+        assertThat(templates.html("overdue", Locale.ROOT, Map.of())).isNull();
+    }
+
+    @Test
+    void sectionsRepeatListsAndTestFlags() {
+        NotificationTemplates templates = new NotificationTemplates(Map.of(
+                "digest.txt", "{{#items}}[{{name}} of {{owner}}]{{/items}}{{^items}}none{{/items}}{{#late}}!{{/late}}"));
+
+        assertThat(templates.text("digest", Locale.ROOT, Map.of("owner", "ann", "late", true,
+                "items", List.of(Map.of("name", "a"), Map.of("name", "b", "owner", "bob")))))
+                .isEqualTo("[a of ann][b of bob]!");
+        assertThat(templates.text("digest", Locale.ROOT, Map.of("items", List.of(), "late", false)))
+                .isEqualTo("none");
+    }
+
+    @Test
+    void htmlVariantEscapesValuesAndLocaleVariantsFallBack() {
+        NotificationTemplates templates = new NotificationTemplates(Map.of(
+                "hello.txt", "Hello {{name}}",
+                "hello.html", "<p>Hello {{name}}</p>",
+                "hello_de.txt", "Hallo {{name}}"));
+        Map<String, String> model = Map.of("name", "<Tom & Jerry>");
+
+        assertThat(templates.html("hello", Locale.ENGLISH, model)).isEqualTo("<p>Hello &lt;Tom &amp; Jerry&gt;</p>");
+        assertThat(templates.text("hello", Locale.GERMANY, model)).isEqualTo("Hallo <Tom & Jerry>");
+        assertThat(templates.text("hello", Locale.FRENCH, model)).isEqualTo("Hello <Tom & Jerry>");
+        assertThat(templates.html("hello", Locale.GERMAN, model)).isNull();
+    }
+
+    @Test
+    void brokenTemplatesAreRejectedUpFront() {
+        assertThatThrownBy(() -> new NotificationTemplates(Map.of("broken.txt", "{{#items}}never closed")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NotificationTemplates(Map.of("broken.txt", "{{#a}}{{/b}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.tasktracker.model.OutboxMessage;
+import com.tasktracker.model.OutboxStatus;
+import com.tasktracker.repo.NotificationOutboxRepository;
+
+import jakarta.mail.internet.MimeMessage;
+
+// the scheduled poll is pushed out of the way so each test drives the relay itself
+@SpringBootTest(properties = { "spring.mail.port=3025", "tasktracker.outbox.poll-ms=3600000" })
+class OutboxRelayTests {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private NotificationOutboxRepository outbox;
+    @Autowired
+    private OutboxRelay relay;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void clear() {
+        transaction = new TransactionTemplate(transactionManager);
+        outbox.deleteAll();
+    }
+
+    @Test
+    void sameIdempotencyKeyIsQueuedOnce() {
+        transaction.executeWithoutResult(status -> {
+            assertThat(enqueue("weekly:1:2024-01-01")).isEqualTo(1);
+            assertThat(enqueue("weekly:1:2024-01-01")).isZero();
+        });
+        assertThat(outbox.count()).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackChangeLeavesNoMail() {
+        transaction.executeWithoutResult(status -> {
+            enqueue("welcome:42");
+            status.setRollbackOnly();
+        });
+        assertThat(outbox.count()).isZero();
+    }
+
+    @Test
+    void claimedRowsAreNotClaimedAgain() {
+        transaction.executeWithoutResult(status -> enqueue("overdue:7:2024-01-01"));
+        assertThat(relay.claimBatch()).hasSize(1);
+        assertThat(relay.claimBatch()).isEmpty();
+    }
+
+    @Test
+    void relayedMailIsMarkedSentAfterDelivery() throws Exception {
+        transaction.executeWithoutResult(status -> enqueue("due-soon:3:2024-01-01T09:00"));
+        relay.relay();
+
+        assertThat(smtp.waitForIncomingEmail(10_000, 1)).isTrue();
+        MimeMessage received = smtp.getReceivedMessages()[0];
+        assertThat(received.getHeader(MailDispatcher.IDEMPOTENCY_HEADER)).containsExactly("due-soon:3:2024-01-01T09:00");
+
+        OutboxMessage row = awaitStatus(OutboxStatus.SENT);
+        assertThat(row.getAttempts()).isEqualTo(1);
+        assertThat(row.getClaimedUntil()).isNull();
+    }
+
+    private int enqueue(String key) {
+        return outbox.enqueue(key, "someone@example.com", "Reminder", "body", LocalDateTime.now());
+    }
+
+    // the outcome is recorded on a mail worker thread, shortly after the SMTP server accepts the message
+    private OutboxMessage awaitStatus(OutboxStatus expected) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<OutboxMessage> rows = outbox.findAll();
+            if (rows.size() == 1 && rows.get(0).getStatus() == expected) {
+                return rows.get(0);
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("outbox row never reached " + expected);
+    }
+}
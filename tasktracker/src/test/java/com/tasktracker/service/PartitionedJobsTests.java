@@ -0,0 +1,181 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.JobPartition;
+import com.tasktracker.model.PartitionStatus;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.JobPartitionRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// the application's own workers are kept off the table so only the instance under test claims partitions
+@SpringBootTest(properties = "tasktracker.jobs.partition-poll-ms=3600000")
+class PartitionedJobsTests {
+
+    @Autowired
+    private JobPartitionRepository partitions;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meters = new SimpleMeterRegistry();
+    private final List<Long> userIds = new ArrayList<>();
+    private PartitionedJobs jobs;
+
+    @BeforeEach
+    void seed() {
+        partitions.deleteAll();
+        for (int i = 0; i < 25; i++) {
+            userIds.add(users.save(new AppUser("partition-user-" + System.nanoTime() + "-" + i, "{noop}secret", null)).getId());
+        }
+        jobs = new PartitionedJobs(partitions, users, transactionManager, meters, "node-test", 4, 3, 2, 60_000, 3, 7);
+    }
+
+    @AfterEach
+    void stop() {
+        jobs.shutdown();
+        users.deleteAllById(userIds);
+    }
+
+    @Test
+    void partitionsCoverTheIdRangeWithoutGaps() {
+        List<JobPartition> ranges = jobs.split("job", "p", 5, 104);
+
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0).getAfterOwner()).isEqualTo(4);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).getAfterOwner()).isEqualTo(ranges.get(i - 1).getLastOwner());
+        }
+        assertThat(ranges.get(3).getLastOwner()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void everyUserIsProcessedOnceAcrossWorkers() throws Exception {
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        jobs.register("all-users", (period, after, last, maxUsers) -> handle(after, last, maxUsers, processed));
+
+        assertThat(jobs.start("all-users", "run-1")).isTrue();
+        awaitDone("all-users", "run-1");
+
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(userIds);
+        assertThat(meters.get("tasktracker.jobs.progress").tag("job", "all-users").gauge().value()).isEqualTo(1.0);
+        assertThat(meters.get("tasktracker.jobs.partition").tags("job", "all-users", "outcome", "success").timer().count())
+                .isEqualTo(partitions.countByJobAndPeriod("all-users", "run-1"));
+        PartitionedJobs.RunStatus run = jobs.status("all-users", "run-1");
+        assertThat(run.state()).isEqualTo("DONE");
+        assertThat(run.usersProcessed()).isGreaterThanOrEqualTo(userIds.size());
+        assertThat(run.finishedAt()).isNotNull();
+    }
+
+    @Test
+    void interruptedPartitionResumesFromItsCheckpoint() throws Exception {
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        List<Long> chunkStarts = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        long firstUser = userIds.get(0);
+        jobs.register("flaky", (period, after, last, maxUsers) -> {
+            // the chunk after the first one of the partition holding our first user fails once
+            if (after > firstUser && after < firstUser + 4 && failedOnce.compareAndSet(false, true)) {
+                throw new IllegalStateException("worker died");
+            }
+            if (after < firstUser && last >= firstUser) {
+                chunkStarts.add(after);
+            }
+            return handle(after, last, maxUsers, processed);
+        });
+
+        jobs.start("flaky", "run-1");
+        awaitDone("flaky", "run-1");
+
+        assertThat(failedOnce).isTrue();
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(userIds);
+        // one start for the partition; the retry began at the checkpoint, not at the start of the range again
+        assertThat(chunkStarts).hasSize(1);
+        assertThat(jobs.status("flaky", "run-1").failures()).isEqualTo(1);
+    }
+
+    @Test
+    void partitionLostBeforeItFinishesIsLeftToItsNewOwner() throws Exception {
+        AtomicBoolean stolen = new AtomicBoolean();
+        long firstUser = userIds.get(0);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        jobs.register("stolen", (period, after, last, maxUsers) -> {
+            PartitionedJobs.Chunk chunk = handle(after, last, maxUsers, new ArrayList<>());
+            // the lease of the partition holding our first user runs out while its last chunk is in flight
+            JobPartition partition = partitions.findAll().stream()
+                    .filter(p -> p.getJob().equals("stolen") && p.getLastOwner() == last).findFirst().orElseThrow();
+            if (chunk.stoppedAt() == null && partition.getAfterOwner() < firstUser && last >= firstUser
+                    && stolen.compareAndSet(false, true)) {
+                transaction.executeWithoutResult(status -> partitions.claim(partition.getId(), "node-other",
+                        System.currentTimeMillis() + 3_600_000));
+            }
+            return chunk;
+        });
+
+        jobs.start("stolen", "run-1");
+        long total = partitions.countByJobAndPeriod("stolen", "run-1");
+        for (int i = 0; i < 100 && meters.find("tasktracker.jobs.partition").tags("job", "stolen", "outcome", "lost")
+                .timer() == null; i++) {
+            Thread.sleep(100);
+        }
+        for (int i = 0; i < 100 && partitions.countByJobAndPeriodAndStatus("stolen", "run-1", PartitionStatus.DONE)
+                < total - 1; i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(stolen).isTrue();
+        assertThat(meters.get("tasktracker.jobs.partition").tags("job", "stolen", "outcome", "lost").timer().count())
+                .isEqualTo(1);
+        JobPartition lost = partitions.findAll().stream()
+                .filter(p -> p.getJob().equals("stolen") && "node-other".equals(p.getClaimedBy())).findFirst().orElseThrow();
+        // still the new owner's to finish: nothing of the last chunk was added, and the run is not done
+        assertThat(lost.getStatus()).isEqualTo(PartitionStatus.PENDING);
+        assertThat(lost.getUsersProcessed()).isLessThan((int) userIds.stream()
+                .filter(id -> id > lost.getAfterOwner() && id <= lost.getLastOwner()).count());
+        assertThat(jobs.status("stolen", "run-1").state()).isEqualTo("RUNNING");
+        assertThat(meters.get("tasktracker.jobs.progress").tag("job", "stolen").gauge().value()).isLessThan(1.0);
+    }
+
+    // the owners of our seeded users in (after, last], at most maxUsers; like the notification scans
+    private PartitionedJobs.Chunk handle(long after, long last, int maxUsers, List<Long> processed) {
+        List<Long> chunk = userIds.stream().filter(id -> id > after && id <= last).sorted().limit(maxUsers + 1).toList();
+        if (chunk.size() <= maxUsers) {
+            processed.addAll(chunk);
+            return new PartitionedJobs.Chunk(null, chunk.size(), 0);
+        }
+        processed.addAll(chunk.subList(0, maxUsers));
+        return new PartitionedJobs.Chunk(chunk.get(maxUsers - 1), maxUsers, 0);
+    }
+
+    // done in the table, and each worker past its bookkeeping (the timer is recorded after the progress gauge)
+    private void awaitDone(String job, String period) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            long total = partitions.countByJobAndPeriod(job, period);
+            Timer succeeded = meters.find("tasktracker.jobs.partition").tags("job", job, "outcome", "success").timer();
+            if (total > 0 && partitions.countByJobAndPeriodAndStatus(job, period, PartitionStatus.DONE) == total
+                    && succeeded != null && succeeded.count() == total) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError(job + " " + period + " did not finish");
+    }
+}
@@ -0,0 +1,102 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskReminder;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.NotificationOutboxRepository;
+import com.tasktracker.repo.TaskReminderRepository;
+
+@SpringBootTest
+class ReminderSchedulerTests {
+
+    private static final String USERNAME = "reminder-owner";
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private ReminderScheduler scheduler;
+    @Autowired
+    private TaskReminderRepository reminders;
+    @Autowired
+    private NotificationOutboxRepository outbox;
+    @Autowired
+    private AppUserRepository users;
+
+    private AppUser owner;
+    private Task task;
+
+    @BeforeEach
+    void seed() {
+        owner = users.save(new AppUser(USERNAME, "{noop}secret", "owner@example.com"));
+    }
+
+    @AfterEach
+    void clear() {
+        if (task != null) {
+            taskService.deleteTask(USERNAME, task.getId());
+        }
+        users.delete(owner);
+    }
+
+    @Test
+    void remindersFollowTheDueDate() {
+        LocalDate due = LocalDate.now().plusDays(10);
+        task = taskService.createTask(USERNAME, "Renew passport", null, null, null, due.toString(), null,
+                List.of("1d", "2h"));
+        assertThat(fireTimes()).containsExactlyInAnyOrder(due.atTime(LocalTime.of(9, 0)).minusDays(1),
+                due.atTime(LocalTime.of(7, 0)));
+
+        // a new due date moves the same offsets along
+        LocalDate moved = due.plusDays(5);
+        taskService.updateTask(USERNAME, task.getId(), null, null, null, null, moved.toString(), null, null);
+        assertThat(fireTimes()).containsExactlyInAnyOrder(moved.atTime(LocalTime.of(9, 0)).minusDays(1),
+                moved.atTime(LocalTime.of(7, 0)));
+
+        taskService.updateTask(USERNAME, task.getId(), null, null, null, null, null, null, List.of());
+        assertThat(fireTimes()).isEmpty();
+    }
+
+    @Test
+    void reminderFiresOnceThroughTheOutbox() {
+        task = taskService.createTask(USERNAME, "Call the bank", null, null, null,
+                LocalDate.now().plusDays(1).toString(), null, null);
+        TaskReminder due = reminders.save(new TaskReminder(task, 60, LocalDateTime.now().minusMinutes(1), null));
+
+        scheduler.load();
+        scheduler.advance();
+
+        assertThat(outbox.findAll()).anyMatch(message -> message.getIdempotencyKey().equals("reminder:" + due.getId()));
+        assertThat(reminders.findById(due.getId()).orElseThrow().getFiredAt()).isNotNull();
+        // another instance's wheel firing the same reminder finds it already sent
+        assertThat(scheduler.fire(due.getId())).isFalse();
+    }
+
+    @Test
+    void offsetsAreValidated() {
+        assertThat(ReminderScheduler.parseOffsets(List.of("30m", "2h", "1d", "1w", "45")))
+                .containsExactly(30, 120, 1440, 10080, 45);
+        assertThatThrownBy(() -> ReminderScheduler.parseOffsets(List.of("soon")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReminderScheduler.parseOffsets(List.of("5w")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<LocalDateTime> fireTimes() {
+        return reminders.findByTaskId(task.getId()).stream().map(TaskReminder::getFireAt).toList();
+    }
+}
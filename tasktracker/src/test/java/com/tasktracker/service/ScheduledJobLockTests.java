@@ -0,0 +1,84 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tasktracker.repo.SchedulerLockRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+class ScheduledJobLockTests {
+
+    @Autowired
+    private SchedulerLockRepository locks;
+
+    @Test
+    void onlyOneInstanceHoldsTheLease() {
+        JobLock nodeA = new DatabaseJobLock(locks, "node-a");
+        JobLock nodeB = new DatabaseJobLock(locks, "node-b");
+        long now = System.currentTimeMillis();
+
+        assertThat(nodeA.tryAcquire("exclusive", now + 60_000)).isTrue();
+        assertThat(nodeB.tryAcquire("exclusive", now + 60_000)).isFalse();
+
+        // released by moving the lease to now
+        assertThat(nodeA.extend("exclusive", System.currentTimeMillis())).isTrue();
+        assertThat(nodeB.tryAcquire("exclusive", now + 60_000)).isTrue();
+        assertThat(nodeA.extend("exclusive", now + 60_000)).as("renewal after losing the lease").isFalse();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() throws Exception {
+        JobLock crashed = new DatabaseJobLock(locks, "node-crashed");
+        JobLock survivor = new DatabaseJobLock(locks, "node-survivor");
+
+        assertThat(crashed.tryAcquire("takeover", System.currentTimeMillis() + 100)).isTrue();
+        assertThat(survivor.tryAcquire("takeover", System.currentTimeMillis() + 60_000)).isFalse();
+        Thread.sleep(150);
+        assertThat(survivor.tryAcquire("takeover", System.currentTimeMillis() + 60_000)).isTrue();
+    }
+
+    @Test
+    void runsAreTimedAndOverlappingRunsSkipped() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ScheduledJobRunner runner = new ScheduledJobRunner(new LocalJobLock(), meters, 60_000, 0);
+        AtomicBoolean nestedRan = new AtomicBoolean(true);
+        try {
+            assertThat(runner.run("report", () -> nestedRan.set(runner.run("report", () -> {})))).isTrue();
+            assertThat(nestedRan).isFalse();
+            assertThat(runner.run("report", () -> {})).as("after the lease is released").isTrue();
+
+            assertThat(meters.get("tasktracker.jobs.run").tags("job", "report", "outcome", "success").timer().count())
+                    .isEqualTo(2);
+            assertThat(meters.get("tasktracker.jobs.skipped").tags("job", "report").counter().count()).isEqualTo(1);
+            assertThat(meters.get("tasktracker.jobs.last-success").tags("job", "report").gauge().value()).isPositive();
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    void failedRunIsRecordedAndRethrown() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ScheduledJobRunner runner = new ScheduledJobRunner(new LocalJobLock(), meters, 60_000, 60_000);
+        try {
+            assertThatThrownBy(() -> runner.run("broken", () -> {
+                throw new IllegalStateException("boom");
+            })).isInstanceOf(IllegalStateException.class);
+            assertThat(meters.get("tasktracker.jobs.run").tags("job", "broken", "outcome", "failure").timer().count())
+                    .isEqualTo(1);
+            // held for lock-at-least after a short run, so a lagging instance doesn't start it again
+            assertThat(runner.run("broken", () -> {})).isFalse();
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.TaskHistoryEntry;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskHistoryRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.TaskService.Transition;
+
+@SpringBootTest
+class TaskHistoryTests {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskHistory taskHistory;
+    @Autowired
+    private TaskHistoryRepository historyRepository;
+    @Autowired
+    private TaskHistoryWriter writer;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper json;
+
+    private AppUser owner;
+
+    @BeforeEach
+    void seed() {
+        owner = users.save(new AppUser("history-user", "{noop}secret", null));
+    }
+
+    @AfterEach
+    void clear() {
+        tasks.deleteAll(tasks.findByOwner(owner));
+        // history goes with its user
+        users.delete(owner);
+    }
+
+    @Test
+    void editsAreLoggedAsFieldDiffs() throws Exception {
+        Long id = taskService.createTask(owner.getUsername(), "Draft", null, Priority.LOW, null, null, null, null).getId();
+        taskService.updateTask(owner.getUsername(), id, "Final", null, Priority.HIGH, null, "2030-01-31", null, null);
+        taskService.updateTask(owner.getUsername(), id, "Final", null, null, null, null, null, null); // no change
+        taskService.transition(owner.getId(), id, Transition.COMPLETE);
+
+        List<TaskHistoryEntry> entries = await(() -> taskHistory.page(owner.getId(), id, null, 10), 3);
+        assertThat(entries).extracting(TaskHistoryEntry::getAction).containsExactly("status", "updated", "created");
+        assertThat(json.readTree(entries.get(1).getChanges()).toString()).isEqualTo(
+                "{\"title\":{\"from\":\"Draft\",\"to\":\"Final\"},\"priority\":{\"from\":\"LOW\",\"to\":\"HIGH\"},"
+                + "\"dueDate\":{\"from\":null,\"to\":\"2030-01-31\"}}");
+        assertThat(entries.get(0).getChanges()).isEqualTo("{\"status\":{\"to\":\"DONE\"}}");
+        assertThat(entries).allMatch(entry -> owner.getId().equals(entry.getActorId()));
+
+        // somebody else asking sees nothing
+        assertThat(taskHistory.page(owner.getId() + 1000, id, null, 10)).isEmpty();
+    }
+
+    @Test
+    void bulkTransitionLogsOnlyTheTasksItMoved() throws Exception {
+        Long done = taskService.createTask(owner.getUsername(), "Done already", null, null, null, null, null, null).getId();
+        Long first = taskService.createTask(owner.getUsername(), "First", null, null, null, null, null, null).getId();
+        Long second = taskService.createTask(owner.getUsername(), "Second", null, null, null, null, null, null).getId();
+        taskService.transition(owner.getId(), done, Transition.COMPLETE);
+
+        taskService.transition(owner.getId(), List.of(done, first, second), Transition.COMPLETE);
+
+        for (int i = 0; i < 100 && writer.queued() > 0; i++) {
+            Thread.sleep(50);
+        }
+        // created plus one status entry each; the task that was already done keeps its single one
+        List<TaskHistoryEntry> entries = historyRepository.findAll().stream()
+                .filter(entry -> List.of(done, first, second).contains(entry.getTaskId())).toList();
+        assertThat(entries).hasSize(6);
+        assertThat(entries).filteredOn(entry -> "status".equals(entry.getAction()))
+                .extracting(TaskHistoryEntry::getTaskId).containsExactlyInAnyOrder(done, first, second);
+    }
+
+    @Test
+    void journalLeftByACrashIsReplayedOnce(@TempDir Path dir) throws Exception {
+        TaskHistoryWriter.Change change = new TaskHistoryWriter.Change("crash-entry", 424242L, owner.getId(),
+                owner.getId(), "updated", "{}", LocalDateTime.now());
+        String line = json.writeValueAsString(change) + "\n";
+        // written before the crash, and again while it was already in the journal
+        Files.writeString(dir.resolve("history-000000000001.log"), line + line + "{\"key\": \"torn");
+
+        TaskHistoryWriter writer = new TaskHistoryWriter(historyRepository, transactionManager, json,
+                100, 10, 50, 100, dir.toString(), "node-test", 0, 1 << 20);
+        try {
+            List<TaskHistoryEntry> entries = await(() -> taskHistory.page(owner.getId(), 424242L, null, 10), 1);
+            assertThat(entries).hasSize(1);
+            assertThat(dir.resolve("history-000000000001.log")).doesNotExist();
+        } finally {
+            writer.shutdown();
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void entryWithoutRoomInTheQueueIsWrittenFromTheJournal(@TempDir Path dir) throws Exception {
+        // room for one entry, held while the writer waits out the flush interval for more
+        TaskHistoryWriter writer = new TaskHistoryWriter(historyRepository, transactionManager, json,
+                1, 10, 500, 10, dir.toString(), "node-test", 0, 1 << 20);
+        try {
+            assertThat(writer.append(new TaskHistoryWriter.Change("queued-entry", 434343L, owner.getId(),
+                    owner.getId(), "created", "{}", LocalDateTime.now()))).isTrue();
+            assertThat(writer.append(new TaskHistoryWriter.Change("journaled-entry", 434343L, owner.getId(),
+                    owner.getId(), "updated", "{}", LocalDateTime.now()))).isFalse();
+
+            List<TaskHistoryEntry> entries = await(() -> taskHistory.page(owner.getId(), 434343L, null, 10), 2);
+            assertThat(entries).extracting(TaskHistoryEntry::getAction).containsExactlyInAnyOrder("created", "updated");
+            for (int i = 0; i < 100 && writer.queued() > 0; i++) {
+                Thread.sleep(50);
+            }
+            assertThat(writer.queued()).isZero();
+        } finally {
+            writer.shutdown();
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static <T> List<T> await(Supplier<List<T>> query, int size) throws InterruptedException {
+        List<T> result = query.get();
+        for (int i = 0; i < 100 && result.size() < size; i++) {
+            Thread.sleep(50);
+            result = query.get();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.tasktracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void expiresWithinTheTickOfItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.schedule(3500, "soon");
+
+        assertThat(wheel.advanceTo(2999)).isEmpty();
+        assertThat(wheel.advanceTo(3000)).containsExactly("soon");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void farDeadlinesCascadeDownTheLevels() {
+        // 8 ticks per level: 8s, 64s and 512s levels
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.schedule(100_000, "far");
+        wheel.schedule(300_500, "farther");
+
+        assertThat(wheel.advanceTo(99_999)).isEmpty();
+        assertThat(wheel.advanceTo(100_000)).containsExactly("far");
+        assertThat(wheel.advanceTo(299_999)).isEmpty();
+        assertThat(wheel.advanceTo(300_000)).containsExactly("farther");
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 0);
+        TimingWheel<String>.Timeout cancelled = wheel.schedule(20_000, "cancelled");
+        wheel.schedule(20_000, "kept");
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(cancelled.cancel()).isFalse();
+        assertThat(wheel.advanceTo(30_000)).containsExactly("kept");
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 10_000);
+        wheel.schedule(5_000, "late");
+
+        assertThat(wheel.advanceTo(10_000)).containsExactly("late");
+    }
+
+    @Test
+    void everyTimeoutExpiresOnceInItsOwnTick() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, 0);
+        Random random = new Random(42);
+        Set<Long> deadlines = new HashSet<>();
+        while (deadlines.size() < 2000) {
+            deadlines.add(1 + (long) (random.nextDouble() * 1_000_000));
+        }
+        deadlines.forEach(deadline -> wheel.schedule(deadline, deadline));
+
+        List<Long> expired = new ArrayList<>();
+        for (long now = 0; now <= 1_000_000; now += TICK) {
+            for (long deadline : wheel.advanceTo(now)) {
+                assertThat(deadline - deadline % TICK).as("tick of %d", deadline).isEqualTo(now);
+                expired.add(deadline);
+            }
+        }
+        assertThat(expired).hasSize(deadlines.size()).doesNotHaveDuplicates();
+    }
+}
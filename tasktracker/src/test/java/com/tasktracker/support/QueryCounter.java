@@ -0,0 +1,56 @@
+package com.tasktracker.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+/**
+ * Thin helper over datasource-proxy's thread-bound counters. Counts are per
+ * thread, which covers MockMvc requests and direct service calls alike.
+ */
+public final class QueryCounter {
+
+    static final String DATASOURCE_NAME = "tasktracker";
+
+    private QueryCounter() {}
+
+    public static void reset() {
+        QueryCountHolder.clear();
+    }
+
+    public static long total() {
+        QueryCount count = QueryCountHolder.get(DATASOURCE_NAME);
+        return count == null ? 0 : count.getTotal();
+    }
+
+    public static long selects() {
+        QueryCount count = QueryCountHolder.get(DATASOURCE_NAME);
+        return count == null ? 0 : count.getSelect();
+    }
+
+    /**
+     * Runs the action and returns how many statements it issued.
+     */
+    public static long count(ThrowingRunnable action) throws Exception {
+        reset();
+        action.run();
+        return total();
+    }
+
+    /**
+     * Fails when the action issues more statements than the budget allows.
+     */
+    public static long assertAtMost(long budget, ThrowingRunnable action) throws Exception {
+        long statements = count(action);
+        assertThat(statements)
+                .as("SQL statements issued (budget %d)", budget)
+                .isLessThanOrEqualTo(budget);
+        return statements;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tasktracker.support;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the application DataSource in a datasource-proxy that counts every
+ * statement, so tests can assert query budgets through {@link QueryCounter}.
+ */
+@TestConfiguration
+public class QueryCountingConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(QueryCounter.DATASOURCE_NAME)
+                            .countQuery()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.tasktracker.support;
+
+import java.time.LocalDate;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.Status;
+import com.tasktracker.model.Task;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.TaskHistoryWriter;
+
+/**
+ * An owner and a stranger (username + "-stranger") for API tests that check a user only reaches their
+ * own tasks, with a factory for their tasks. {@link #clear} waits for the history writer before deleting
+ * the users, as an entry still queued for a deleted user can no longer be written.
+ */
+public final class TaskFixture {
+
+    private final AppUserRepository users;
+    private final TaskRepository tasks;
+    private final TaskHistoryWriter history;
+    private final AppUser owner;
+    private final AppUser stranger;
+
+    private TaskFixture(AppUserRepository users, TaskRepository tasks, TaskHistoryWriter history, String username) {
+        this.users = users;
+        this.tasks = tasks;
+        this.history = history;
+        this.owner = users.save(new AppUser(username, "{noop}secret", null));
+        this.stranger = users.save(new AppUser(username + "-stranger", "{noop}secret", null));
+    }
+
+    public static TaskFixture seed(AppUserRepository users, TaskRepository tasks, TaskHistoryWriter history,
+            String username) {
+        return new TaskFixture(users, tasks, history, username);
+    }
+
+    public AppUser owner() {
+        return owner;
+    }
+
+    public AppUser stranger() {
+        return stranger;
+    }
+
+    public Long task(AppUser taskOwner, String title, Status status) {
+        return task(taskOwner, title, Priority.MEDIUM, status, null);
+    }
+
+    public Long task(AppUser taskOwner, String title, Priority priority, Status status, LocalDate dueDate) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setOwner(taskOwner);
+        task.setPriority(priority);
+        task.setStatus(status);
+        task.setDueDate(dueDate);
+        return tasks.save(task).getId();
+    }
+
+    // their sync rows and history go with the users
+    public void clear() throws InterruptedException {
+        for (int i = 0; i < 100 && history.queued() > 0; i++) {
+            Thread.sleep(50);
+        }
+        tasks.deleteAll(tasks.findByOwner(owner));
+        tasks.deleteAll(tasks.findByOwner(stranger));
+        users.delete(owner);
+        users.delete(stranger);
+    }
+}
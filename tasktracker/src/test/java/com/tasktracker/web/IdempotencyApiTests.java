@@ -0,0 +1,144 @@
+package com.tasktracker.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.IdempotentRequestRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.IdempotentRequests;
+import com.tasktracker.service.IdempotentRequests.Outcome;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyApiTests {
+
+    private static final String USERNAME = "idempotent-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+    @Autowired
+    private IdempotentRequestRepository requestRepository;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper json;
+
+    private AppUser owner;
+
+    @BeforeEach
+    void seed() {
+        owner = users.save(new AppUser(USERNAME, "{noop}secret", null));
+    }
+
+    @AfterEach
+    void clear() {
+        tasks.deleteAll(tasks.findByOwner(owner));
+        // keys go with their user
+        users.delete(owner);
+    }
+
+    @Test
+    void retriedCreateReturnsTheFirstResponse() throws Exception {
+        String first = mvc.perform(post("/tasks").with(user(USERNAME)).header("Idempotency-Key", "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Once\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(first, "$.id");
+
+        mvc.perform(post("/tasks").with(user(USERNAME)).header("Idempotency-Key", "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Once\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(id));
+        assertThat(tasks.findByOwner(owner)).hasSize(1);
+
+        // the same key for something else
+        mvc.perform(post("/tasks").with(user(USERNAME)).header("Idempotency-Key", "create-1")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"title\": \"Twice\"}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        mvc.perform(delete("/tasks/" + id).with(user(USERNAME)).header("Idempotency-Key", "delete-1"))
+                .andExpect(status().isOk());
+        // deleting again would fail; the retry gets the first answer
+        mvc.perform(delete("/tasks/" + id).with(user(USERNAME)).header("Idempotency-Key", "delete-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirst() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Outcome> first = pool.submit(() -> idempotentRequests.execute(owner.getId(), "slow", "POST /tasks",
+                    Map.of("title", "slow"), () -> {
+                        runs.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return Map.of("id", 1);
+                    }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Outcome> duplicate = pool.submit(() -> idempotentRequests.execute(owner.getId(), "slow",
+                    "POST /tasks", Map.of("title", "slow"), () -> runs.incrementAndGet()));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(new Outcome(200, "{\"id\":1}", false));
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(new Outcome(200, "{\"id\":1}", true));
+            assertThat(runs).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // another node, with nothing in memory, finds the response in the table
+        IdempotentRequests otherNode = new IdempotentRequests(requestRepository, transactionManager, json,
+                100, 60_000, 60_000, 1_000);
+        assertThat(otherNode.execute(owner.getId(), "slow", "POST /tasks", Map.of("title", "slow"),
+                () -> runs.incrementAndGet())).isEqualTo(new Outcome(200, "{\"id\":1}", true));
+        assertThat(runs).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
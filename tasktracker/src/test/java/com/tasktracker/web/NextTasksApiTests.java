@@ -0,0 +1,99 @@
+package com.tasktracker.web;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.Status;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.TaskHistoryWriter;
+import com.tasktracker.support.QueryCounter;
+import com.tasktracker.support.QueryCountingConfig;
+import com.tasktracker.support.TaskFixture;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+class NextTasksApiTests {
+
+    private static final String USERNAME = "next-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private TaskHistoryWriter history;
+
+    private TaskFixture fixture;
+    private AppUser owner;
+    private AppUser stranger;
+
+    @BeforeEach
+    void seed() {
+        fixture = TaskFixture.seed(users, tasks, history, USERNAME);
+        owner = fixture.owner();
+        stranger = fixture.stranger();
+    }
+
+    @AfterEach
+    void clear() throws Exception {
+        fixture.clear();
+    }
+
+    @Test
+    void mostUrgentPriorityFirstThenSoonestDue() throws Exception {
+        LocalDate today = LocalDate.now();
+        fixture.task(owner, "low", Priority.LOW, Status.PENDING, today);
+        fixture.task(owner, "medium later", Priority.MEDIUM, Status.IN_PROGRESS, today.plusDays(5));
+        fixture.task(owner, "medium undated", Priority.MEDIUM, Status.PENDING, null);
+        fixture.task(owner, "medium sooner", Priority.MEDIUM, Status.OVERDUE, today.minusDays(1));
+        fixture.task(owner, "critical", Priority.CRITICAL, Status.PENDING, today.plusDays(30));
+        fixture.task(owner, "done", Priority.CRITICAL, Status.DONE, today);
+        fixture.task(stranger, "theirs", Priority.CRITICAL, Status.PENDING, today);
+
+        mvc.perform(get("/api/tasks/next?k=4").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].title").value("critical"))
+                .andExpect(jsonPath("$[1].title").value("medium sooner"))
+                .andExpect(jsonPath("$[2].title").value("medium later"))
+                .andExpect(jsonPath("$[3].title").value("medium undated"));
+    }
+
+    @Test
+    void cachedUntilOneOfTheUsersTasksChanges() throws Exception {
+        Long first = fixture.task(owner, "first", Priority.HIGH, Status.PENDING, LocalDate.now());
+        fixture.task(owner, "second", Priority.HIGH, Status.PENDING, LocalDate.now().plusDays(1));
+
+        mvc.perform(get("/api/tasks/next").with(user(USERNAME)))
+                .andExpect(jsonPath("$[0].title").value("first"));
+        // served from the cache: only the user lookup of the plain test principal
+        QueryCounter.assertAtMost(1, () -> mvc.perform(get("/api/tasks/next").with(user(USERNAME)))
+                .andExpect(jsonPath("$.length()").value(2)));
+
+        mvc.perform(patch("/api/tasks/" + first + "/complete").with(user(USERNAME)))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/tasks/next").with(user(USERNAME)))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("second"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.tasktracker.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Task;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.JobPartitionRepository;
+import com.tasktracker.repo.NotificationOutboxRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.NotificationService;
+import com.tasktracker.service.PartitionedJobs;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NotificationJobApiTests {
+
+    private static final String USERNAME = "overdue-api-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper json;
+    @Autowired
+    private JobPartitionRepository partitions;
+    @Autowired
+    private NotificationOutboxRepository outbox;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private PartitionedJobs jobs;
+    @Autowired
+    private NotificationService notifications;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AppUser owner;
+    private Task task;
+
+    @BeforeEach
+    void seed() {
+        partitions.deleteAll();
+        owner = users.save(new AppUser(USERNAME, "{noop}secret", "overdue-api@example.com"));
+        task = new Task();
+        task.setTitle("Renew the certificate");
+        task.setOwner(owner);
+        task.setDueDate(LocalDate.now().minusDays(2));
+        task = tasks.save(task);
+        // the run's ranges wait for the test, so the triggers below find it still running
+        jobs.register("overdue", (period, after, last, maxUsers) -> {
+            await(release);
+            return overdue(period, after, last, maxUsers);
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        release.countDown();
+        jobs.register("overdue", this::overdue);
+        tasks.delete(task);
+        users.delete(owner);
+    }
+
+    @Test
+    void overdueRunIsStartedOnceAndReportsItsProgress() throws Exception {
+        String location = mvc.perform(post("/api/notifications/overdue").with(user(USERNAME)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.job").value("overdue"))
+                .andExpect(jsonPath("$.period").value(LocalDate.now().toString()))
+                .andReturn().getResponse().getHeader("Location");
+        long runPartitions = partitions.countByJobAndPeriod("overdue", LocalDate.now().toString());
+
+        // a second trigger joins the run instead of splitting another one
+        mvc.perform(post("/api/notifications/overdue").with(user(USERNAME)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", location));
+        assertThat(partitions.countByJobAndPeriod("overdue", LocalDate.now().toString())).isEqualTo(runPartitions);
+
+        release.countDown();
+        JsonNode run = awaitFinished(location);
+        assertThat(run.get("state").asText()).isEqualTo("DONE");
+        assertThat(run.get("partitionsDone").asLong()).isEqualTo(runPartitions);
+        assertThat(run.get("usersProcessed").asLong()).isPositive();
+        assertThat(run.get("mailsQueued").asLong()).isPositive();
+        assertThat(outbox.findAll()).anyMatch(m -> m.getIdempotencyKey()
+                .equals("overdue:" + owner.getId() + ":" + LocalDate.now()));
+
+        // once it has finished a trigger reports the day's run as it ended, not as a new job
+        mvc.perform(post("/api/notifications/overdue").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Location"))
+                .andExpect(jsonPath("$.state").value("DONE"))
+                .andExpect(jsonPath("$.period").value(LocalDate.now().toString()));
+        assertThat(partitions.countByJobAndPeriod("overdue", LocalDate.now().toString())).isEqualTo(runPartitions);
+    }
+
+    @Test
+    void unknownRunIsNotFound() throws Exception {
+        mvc.perform(get("/api/notifications/jobs/overdue/1999-01-01").with(user(USERNAME)))
+                .andExpect(status().isNotFound());
+    }
+
+    // what NotificationJobs registers
+    private PartitionedJobs.Chunk overdue(String period, long after, long last, int maxUsers) {
+        return notifications.sendOverdueNotifications(LocalDate.parse(period), after, last, maxUsers);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode awaitFinished(String location) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            JsonNode run = json.readTree(mvc.perform(get(location).with(user(USERNAME)))
+                    .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+            if (!run.get("state").asText().equals("RUNNING")) {
+                return run;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError(location + " did not finish");
+    }
+}
@@ -0,0 +1,191 @@
+package com.tasktracker.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Category;
+import com.tasktracker.model.Priority;
+import com.tasktracker.model.Status;
+import com.tasktracker.model.Task;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.CategoryRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.security.AuthenticatedUser;
+import com.tasktracker.security.JwtUtil;
+import com.tasktracker.service.NotificationService;
+import com.tasktracker.service.TaskService;
+import com.tasktracker.support.QueryCounter;
+import com.tasktracker.support.QueryCountingConfig;
+
+/**
+ * Query-count guardrails. Every endpoint is measured with a small data set and
+ * again after more rows are added; the count must not grow with the rows
+ * (no N+1) and must stay within the endpoint's budget.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+class QueryBudgetTests {
+
+    private static final String USERNAME = "budget-user";
+    private static final int EXTRA_ROWS = 20;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private CategoryRepository categories;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private NotificationService notificationService;
+
+    private AppUser owner;
+
+    @BeforeEach
+    void seed() {
+        tasks.deleteAll();
+        categories.deleteAll();
+        users.deleteAll();
+        owner = users.save(new AppUser(USERNAME, "{noop}secret", "budget@example.com"));
+        addTasks(2);
+    }
+
+    @Test
+    void taskListJson() throws Exception {
+        assertFlat(2, "/tasks");
+    }
+
+    @Test
+    void categoryListJson() throws Exception {
+        assertFlat(1, "/api/categories");
+    }
+
+    @Test
+    void tasksPage() throws Exception {
+        assertFlat(3, "/pages/tasks");
+        assertFlat(3, "/pages/tasks?filter=pending");
+    }
+
+    @Test
+    void taskFormPages() throws Exception {
+        assertFlat(1, "/pages/tasks/new");
+        assertFlat(1, "/pages/tasks/edit");
+    }
+
+    @Test
+    void categoriesPage() throws Exception {
+        assertFlat(2, "/pages/categories");
+    }
+
+    @Test
+    void analyticsPage() throws Exception {
+        assertFlat(2, "/pages/analytics");
+    }
+
+    @Test
+    void notificationsPage() throws Exception {
+        // the user, the slice of tasks due by today and the unread counter the page used to fetch on its own
+        assertFlat(3, "/pages/notifications");
+    }
+
+    @Test
+    void bearerTokenRequestsSkipUserLookup() throws Exception {
+        String token = jwtUtil.generateToken(new AuthenticatedUser(owner.getId(), USERNAME, "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        // the first request fills the user status cache, later ones authenticate from the claims alone
+        mvc.perform(get("/tasks").header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        long withToken = QueryCounter.count(() -> mvc.perform(get("/tasks").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk()));
+        long withSession = QueryCounter.count(() -> perform("/tasks"));
+        assertThat(withToken).as("statements for a token request").isEqualTo(withSession);
+    }
+
+    @Test
+    void userTasksServiceCall() throws Exception {
+        long before = QueryCounter.assertAtMost(2, () -> taskService.getUserTasks(USERNAME).forEach(this::touch));
+        addTasks(EXTRA_ROWS);
+        long after = QueryCounter.assertAtMost(2, () -> taskService.getUserTasks(USERNAME).forEach(this::touch));
+        assertThat(after).as("statements after adding rows").isEqualTo(before);
+    }
+
+    @Test
+    void notificationScansDoNotGrowWithUsers() throws Exception {
+        // each notified user costs one outbox insert; the reads stay at one query per scan
+        long before = scanSelects();
+        for (int i = 0; i < 5; i++) {
+            addTasks(users.save(new AppUser("scan-user-" + i, "{noop}secret", "scan" + i + "@example.com")), 4);
+        }
+        long after = scanSelects();
+        assertThat(before).as("selects issued (budget 3)").isLessThanOrEqualTo(3);
+        assertThat(after).as("selects after adding users").isEqualTo(before);
+    }
+
+    private long scanSelects() throws Exception {
+        QueryCounter.count(this::runNotificationScans);
+        return QueryCounter.selects();
+    }
+
+    private void runNotificationScans() {
+        notificationService.notifyDueSoon();
+        notificationService.sendOverdueNotifications();
+        notificationService.sendWeeklySummary();
+    }
+
+    private void assertFlat(long budget, String url) throws Exception {
+        long before = QueryCounter.assertAtMost(budget, () -> perform(url));
+        addTasks(EXTRA_ROWS);
+        long after = QueryCounter.assertAtMost(budget, () -> perform(url));
+        assertThat(after).as("statements for %s after adding rows", url).isEqualTo(before);
+    }
+
+    private void perform(String url) throws Exception {
+        mvc.perform(get(url).with(user(USERNAME))).andExpect(status().isOk());
+    }
+
+    // Reads the lazy associations the way templates and JSON serialization do
+    private void touch(Task task) {
+        if (task.getCategory() != null) {
+            task.getCategory().getName();
+        }
+    }
+
+    private void addTasks(int count) {
+        addTasks(owner, count);
+    }
+
+    private void addTasks(AppUser taskOwner, int count) {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < count; i++) {
+            Category category = categories.save(new Category("Category " + i));
+            Task task = new Task();
+            task.setTitle("Task " + i);
+            task.setOwner(taskOwner);
+            task.setCategory(category);
+            task.setPriority(Priority.values()[i % Priority.values().length]);
+            task.setStatus(i % 3 == 0 ? Status.DONE : Status.PENDING);
+            task.setDueDate(today.plusDays(i % 5 - 2));
+            tasks.save(task);
+        }
+    }
+}
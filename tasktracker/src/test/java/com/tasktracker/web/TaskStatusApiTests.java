@@ -0,0 +1,113 @@
+package com.tasktracker.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Status;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.TaskHistoryWriter;
+import com.tasktracker.support.QueryCounter;
+import com.tasktracker.support.QueryCountingConfig;
+import com.tasktracker.support.TaskFixture;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryCountingConfig.class)
+class TaskStatusApiTests {
+
+    private static final String USERNAME = "status-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private TaskHistoryWriter history;
+
+    private TaskFixture fixture;
+    private AppUser owner;
+    private AppUser stranger;
+
+    @BeforeEach
+    void seed() {
+        fixture = TaskFixture.seed(users, tasks, history, USERNAME);
+        owner = fixture.owner();
+        stranger = fixture.stranger();
+    }
+
+    @AfterEach
+    void clear() throws Exception {
+        fixture.clear();
+    }
+
+    @Test
+    void transitionsAreSingleConditionalUpdates() throws Exception {
+        Long id = fixture.task(owner, "Status task", Status.PENDING);
+
+        // the user lookup (plain test principal), the update and its two sync statements
+        QueryCounter.assertAtMost(4, () -> mvc.perform(patch("/api/tasks/" + id + "/complete").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.completedAt").isNotEmpty()));
+        assertThat(tasks.findById(id).orElseThrow().getCompletedAt()).isNotNull();
+
+        // already done: nothing to change
+        mvc.perform(patch("/api/tasks/" + id + "/complete").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+        // a done task has to be reopened before it can be started
+        mvc.perform(patch("/api/tasks/" + id + "/start").with(user(USERNAME)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("DONE"));
+        mvc.perform(patch("/api/tasks/" + id + "/reopen").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.completedAt").isEmpty());
+        assertThat(tasks.findById(id).orElseThrow().getCompletedAt()).isNull();
+    }
+
+    @Test
+    void otherUsersTasksAreNotFound() throws Exception {
+        Long theirs = fixture.task(stranger, "Status task", Status.PENDING);
+
+        mvc.perform(patch("/api/tasks/" + theirs + "/complete").with(user(USERNAME)))
+                .andExpect(status().isNotFound());
+        assertThat(tasks.findById(theirs).orElseThrow().getStatus()).isEqualTo(Status.PENDING);
+    }
+
+    @Test
+    void bulkCompleteTouchesOnlyTheCallersTasks() throws Exception {
+        Long first = fixture.task(owner, "Status task", Status.PENDING);
+        Long second = fixture.task(owner, "Status task", Status.IN_PROGRESS);
+        Long theirs = fixture.task(stranger, "Status task", Status.PENDING);
+
+        mvc.perform(patch("/api/tasks/complete").with(user(USERNAME))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [" + first + ", " + second + ", " + theirs + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks.length()").value(2))
+                .andExpect(jsonPath("$.tasks[0].status").value("DONE"))
+                .andExpect(jsonPath("$.tasks[1].status").value("DONE"));
+        assertThat(tasks.findAllById(List.of(first, second))).allMatch(t -> t.getStatus() == Status.DONE);
+        assertThat(tasks.findById(theirs).orElseThrow().getStatus()).isEqualTo(Status.PENDING);
+    }
+}
@@ -0,0 +1,112 @@
+package com.tasktracker.web;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.jayway.jsonpath.JsonPath;
+import com.tasktracker.model.AppUser;
+import com.tasktracker.model.Status;
+import com.tasktracker.repo.AppUserRepository;
+import com.tasktracker.repo.TaskRepository;
+import com.tasktracker.service.TaskHistoryWriter;
+import com.tasktracker.service.TaskService;
+import com.tasktracker.service.TaskService.Transition;
+import com.tasktracker.support.TaskFixture;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskSyncApiTests {
+
+    private static final String USERNAME = "sync-user";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository tasks;
+    @Autowired
+    private AppUserRepository users;
+    @Autowired
+    private TaskHistoryWriter history;
+
+    private TaskFixture fixture;
+    private AppUser owner;
+    private AppUser stranger;
+
+    @BeforeEach
+    void seed() {
+        fixture = TaskFixture.seed(users, tasks, history, USERNAME);
+        owner = fixture.owner();
+        stranger = fixture.stranger();
+    }
+
+    @AfterEach
+    void clear() throws Exception {
+        fixture.clear();
+    }
+
+    @Test
+    void onlyChangesSinceTheCursorComeBack() throws Exception {
+        Long kept = create(owner, "kept");
+        Long removed = create(owner, "removed");
+        create(stranger, "theirs");
+
+        String full = mvc.perform(get("/api/sync/tasks").with(user(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.changes[0].title").value("kept"))
+                .andExpect(jsonPath("$.changes[1].title").value("removed"))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(full, "$.cursor");
+
+        mvc.perform(get("/api/sync/tasks").param("since", cursor).with(user(USERNAME)))
+                .andExpect(jsonPath("$.changes.length()").value(0))
+                .andExpect(jsonPath("$.cursor").value(cursor));
+
+        taskService.transition(owner.getId(), kept, Transition.COMPLETE);
+        taskService.deleteTask(USERNAME, removed);
+
+        mvc.perform(get("/api/sync/tasks").param("since", cursor).with(user(USERNAME)))
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.changes[0].id").value(kept))
+                .andExpect(jsonPath("$.changes[0].status").value(Status.DONE.name()))
+                .andExpect(jsonPath("$.changes[1].id").value(removed))
+                .andExpect(jsonPath("$.changes[1].deleted").value(true))
+                .andExpect(jsonPath("$.changes[1].title").doesNotExist());
+    }
+
+    @Test
+    void pagesFollowTheCursor() throws Exception {
+        create(owner, "first");
+        create(owner, "second");
+
+        String page = mvc.perform(get("/api/sync/tasks").param("size", "1").with(user(USERNAME)))
+                .andExpect(jsonPath("$.changes[0].title").value("first"))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        mvc.perform(get("/api/sync/tasks").param("size", "1").param("since", JsonPath.<String>read(page, "$.cursor"))
+                .with(user(USERNAME)))
+                .andExpect(jsonPath("$.changes[0].title").value("second"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        mvc.perform(get("/api/sync/tasks").param("since", "yesterday").with(user(USERNAME)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long create(AppUser taskOwner, String title) {
+        return taskService.createTask(taskOwner.getUsername(), title, null, null, null, null, null, null).getId();
+    }
+}
@@ -0,0 +1,22 @@
+package com.userprofile.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.gatewayidentity.GatewayIdentityFilter;
+
+// Only requests the gateway signed get through, unless gateway.identity.required=false (dev profile)
+@Configuration
+public class GatewayIdentityConfig {
+
+    @Bean
+    public GatewayIdentityFilter gatewayIdentityFilter(@Value("${gateway.identity.secret:}") String secret,
+            @Value("${gateway.identity.max-age-seconds:300}") long maxAgeSeconds,
+            @Value("${gateway.identity.required:true}") boolean required,
+            @Value("${gateway.identity.open-paths:/profile/health,/profile/test}") List<String> openPaths) {
+        return new GatewayIdentityFilter(secret, maxAgeSeconds, required, openPaths);
+    }
+}
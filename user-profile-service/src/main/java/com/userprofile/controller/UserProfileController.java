@@ -21,7 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/profile")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "${cors.allowed-origin}")
 public class UserProfileController {
     
     // In-memory storage for demo purposes